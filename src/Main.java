@@ -1,4 +1,4 @@
-import controller.Game;
+import view.ConsoleGame;
 
 import java.util.Scanner;
 
@@ -6,7 +6,7 @@ public class Main {
 
     public static void main(String[] args) {
         Scanner in = new Scanner(System.in);
-        Game g = new Game(in);
+        ConsoleGame g = new ConsoleGame(in);
         g.setPlayers();
         g.start();
     }
@@ -0,0 +1,245 @@
+package ai;
+
+import controller.GameListener;
+import controller.Player;
+import controller.PlayerList;
+import model.Card;
+import model.Deck;
+
+/**
+ * Tracks what each player can tell about the card every other player holds, from the events of the game.
+ * A tracker serves every player at the table: what a player learns alone, from a priest or a king,
+ * is kept per player, and what everyone learns, from missed guesses, baron duels and the Countess rule,
+ * is kept per target. Every event updates at most one entry per seat.
+ *
+ * A belief is a probability vector over the cards, indexed by ordinal. A known card has probability 1.
+ * Otherwise each card is weighted by its copies the player cannot see, leaving out the cards ruled out for the target.
+ * A player who draws and plays keeps no exclusions, since the card kept may be the one just drawn.
+ *
+ * A tracker listens to one game at a time.
+ */
+public class BeliefTracker implements GameListener {
+
+    private static final Card[] CARDS = Card.values();
+
+    /**
+     * The list of players of the round.
+     */
+    private PlayerList players;
+    /**
+     * The players of the round, by seat.
+     */
+    private Player[] seats;
+    /**
+     * The card each player knows each other player holds, by observer seat then target seat, null if unknown.
+     */
+    private Card[][] known;
+    /**
+     * The cards ruled out for each player by public events, one bit per ordinal.
+     */
+    private int[] excluded;
+
+    /**
+     * Public constructor for a BeliefTracker object.
+     */
+    public BeliefTracker() {
+        this.seats = new Player[0];
+        this.known = new Card[0][0];
+        this.excluded = new int[0];
+    }
+
+    @Override
+    public void roundStarted(PlayerList players, Deck deck) {
+        this.players = players;
+        int n = players.size();
+        if (seats.length != n) {
+            seats = new Player[n];
+            known = new Card[n][n];
+            excluded = new int[n];
+        }
+        for (int i = 0; i < n; i++) {
+            seats[i] = players.getSeat(i);
+            excluded[i] = 0;
+            for (int j = 0; j < n; j++) {
+                known[i][j] = null;
+            }
+        }
+    }
+
+    @Override
+    public void cardPlayed(Player user, Card card, Player target, Card guess) {
+        int u = user.getSeat();
+        for (int o = 0; o < seats.length; o++) {
+            if (known[o][u] == card) {
+                known[o][u] = null;
+            }
+        }
+        excluded[u] = card == Card.PRINCE || card == Card.KING ? bit(Card.COUNTESS) : 0;
+
+        if (card == Card.KING && target != null) {
+            int t = target.getSeat();
+            for (int o = 0; o < seats.length; o++) {
+                Card swap = known[o][u];
+                known[o][u] = known[o][t];
+                known[o][t] = swap;
+            }
+            int swap = excluded[u];
+            excluded[u] = excluded[t];
+            excluded[t] = swap;
+            known[u][t] = user.hand().peek(0);
+            known[t][u] = target.hand().peek(0);
+        }
+    }
+
+    @Override
+    public void guardGuessed(Player user, Player opponent, Card guess, boolean correct) {
+        if (!correct) {
+            excluded[opponent.getSeat()] |= bit(guess);
+        }
+    }
+
+    @Override
+    public void priestRevealed(Player user, Player opponent, Card card) {
+        known[user.getSeat()][opponent.getSeat()] = card;
+    }
+
+    @Override
+    public void baronCompared(Player user, Player opponent, Player loser, boolean tied) {
+        Card lost = loser.hand().peek(0);
+        int w = (loser == user ? opponent : user).getSeat();
+        if (tied) {
+            for (int o = 0; o < seats.length; o++) {
+                known[o][w] = lost;
+            }
+        } else {
+            excluded[w] |= (bit(lost) << 1) - 1;
+        }
+    }
+
+    @Override
+    public void princeDiscarded(Player opponent, Card discarded, Card drawn) {
+        int t = opponent.getSeat();
+        for (int o = 0; o < seats.length; o++) {
+            known[o][t] = null;
+        }
+        excluded[t] = 0;
+    }
+
+    /**
+     * Gets the card a player knows another player holds.
+     *
+     * @param observer
+     *          the player who knows
+     * @param target
+     *          the player holding the card
+     *
+     * @return the card, null if unknown
+     */
+    public Card known(Player observer, Player target) {
+        return known[observer.getSeat()][target.getSeat()];
+    }
+
+    /**
+     * Computes what a player believes another player holds.
+     *
+     * @param observer
+     *          the player who believes
+     * @param target
+     *          the player holding the card, still in the round
+     *
+     * @return the probability of each card, indexed by ordinal
+     */
+    public double[] belief(Player observer, Player target) {
+        double[] p = new double[CARDS.length];
+        Card card = known(observer, target);
+        if (card != null) {
+            p[card.ordinal()] = 1;
+            return p;
+        }
+        int[] pool = unseen(observer, target);
+        int mask = excluded[target.getSeat()];
+        double total = 0;
+        for (int i = 0; i < pool.length; i++) {
+            if ((mask >>> i & 1) == 0) {
+                total += pool[i];
+            }
+        }
+        if (total == 0) {
+            mask = 0;
+            for (int count : pool) {
+                total += count;
+            }
+        }
+        for (int i = 0; i < pool.length; i++) {
+            if ((mask >>> i & 1) == 0 && total > 0) {
+                p[i] = pool[i] / total;
+            }
+        }
+        return p;
+    }
+
+    /**
+     * Gets the pool a player believes another player's card is drawn from, as an OddsTables index:
+     * the copies of each card the player cannot see, leaving out the cards ruled out for the target.
+     * The belief of a player who does not know the card is uniform over this pool.
+     *
+     * @param observer
+     *          the player who believes
+     * @param target
+     *          the player holding the card, still in the round
+     *
+     * @return the pool index
+     */
+    public int pool(Player observer, Player target) {
+        int[] pool = unseen(observer, target);
+        int mask = excluded[target.getSeat()];
+        boolean empty = true;
+        for (int i = 0; i < pool.length; i++) {
+            empty &= (mask >>> i & 1) != 0 || pool[i] == 0;
+        }
+        if (!empty) {
+            for (int i = 0; i < pool.length; i++) {
+                pool[i] = (mask >>> i & 1) != 0 ? 0 : pool[i];
+            }
+        }
+        return OddsTables.index(pool);
+    }
+
+    /**
+     * Counts the copies of each card a player cannot see and does not know to be held by
+     * someone other than the target.
+     *
+     * @param observer
+     *          the player counting
+     * @param target
+     *          the player whose card is unknown
+     *
+     * @return the unseen copies, indexed by ordinal
+     */
+    private int[] unseen(Player observer, Player target) {
+        int[] pool = new int[CARDS.length];
+        for (Card card : CARDS) {
+            pool[card.ordinal()] = card.copies() - players.seen().count(card);
+        }
+        int o = observer.getSeat();
+        for (int s = 0; s < seats.length; s++) {
+            Player p = seats[s];
+            if (p == observer) {
+                for (int slot = 0; slot < p.hand().size(); slot++) {
+                    pool[p.hand().peek(slot).ordinal()]--;
+                }
+            } else if (p != target && known[o][s] != null && p.hand().hasCards()) {
+                pool[known[o][s].ordinal()]--;
+            }
+        }
+        for (int i = 0; i < pool.length; i++) {
+            pool[i] = Math.max(pool[i], 0);
+        }
+        return pool;
+    }
+
+    private static int bit(Card card) {
+        return 1 << card.ordinal();
+    }
+
+}
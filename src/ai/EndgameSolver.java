@@ -0,0 +1,241 @@
+package ai;
+
+import controller.Player;
+import controller.PlayerList;
+import model.Deck;
+import model.Move;
+import sim.State;
+
+/**
+ * Decides the end of a round by perfect-information Monte Carlo once only a few cards are unseen.
+ * Every arrangement of the unseen cards over the opponents' hands and the deck is equally likely.
+ * Within one arrangement the rest of the round is a game of perfect information, solved exactly by a
+ * search in which every player plays to win the round. The move played is the one that wins in
+ * the most arrangements.
+ *
+ * This is an approximation of the best expected value, not the best expected value itself. Every
+ * arrangement is solved as if all players could see all cards, so the player's own later choices
+ * are tailored to each arrangement although they could not tell the arrangements apart (strategy
+ * fusion), and the opponents are assumed to know the player's hand.
+ *
+ * Solved positions are kept in a bounded, direct-mapped transposition table keyed by the packed State.
+ * A solved position never changes, so entries stay valid across decisions and games, and a colliding
+ * position simply replaces the entry. A solver is used by one thread at a time.
+ */
+public class EndgameSolver {
+
+    /**
+     * The most unseen cards a solvable position can have. Four cards make at most
+     * 24 arrangements, which keeps a decision well under a millisecond.
+     */
+    public static final int MAX_UNSEEN = 4;
+
+    /**
+     * The table index mask.
+     */
+    private final int mask;
+    /**
+     * The keys of the table entries, three longs per entry: deck, table and used.
+     */
+    private final long[] keys;
+    /**
+     * The winning seat + 1 of each entry, 0 for an empty entry.
+     */
+    private final byte[] winners;
+    /**
+     * Move lists, one per search depth.
+     */
+    private final int[][] moves;
+
+    /**
+     * Public constructor for an EndgameSolver object.
+     *
+     * @param tableBits
+     *          the base 2 logarithm of the number of transposition table entries
+     */
+    public EndgameSolver(int tableBits) {
+        if (tableBits < 1 || tableBits > 24) {
+            throw new IllegalArgumentException("The table holds 2^1 to 2^24 entries");
+        }
+        this.mask = (1 << tableBits) - 1;
+        this.keys = new long[3 << tableBits];
+        this.winners = new byte[1 << tableBits];
+        this.moves = new int[State.DECK_SIZE + 1][Move.MAX_MOVES];
+    }
+
+    /**
+     * Checks to see if the solver can take a player's decision.
+     *
+     * @param players
+     *          the list of players
+     * @param deck
+     *          the deck of cards
+     *
+     * @return true if the position is small enough to solve, false if not
+     */
+    public boolean canSolve(PlayerList players, Deck deck) {
+        return players.size() <= State.MAX_SEATS && deck.size() + players.liveCount() - 1 <= MAX_UNSEEN;
+    }
+
+    /**
+     * Solves the decision of a player holding two cards.
+     *
+     * @param user
+     *          the player to move
+     * @param players
+     *          the list of players
+     * @param deck
+     *          the deck of cards, of which only the size is used
+     *
+     * @return the best move, packed as a sim.Move
+     */
+    public int bestMove(Player user, PlayerList players, Deck deck) {
+        if (!canSolve(players, deck)) {
+            throw new IllegalStateException("The position is too large to solve");
+        }
+        return bestMove(new Position(user, players, deck));
+    }
+
+    /**
+     * Solves the decision of the player to move.
+     *
+     * @param position
+     *          what the player knows of the round
+     *
+     * @return the best move, packed as a sim.Move
+     */
+    int bestMove(Position position) {
+        int[] unseen = position.unseen();
+        int[] rootMoves = new int[Move.MAX_MOVES];
+        int count = position.deal(unseen).searchMoves(rootMoves);
+        if (count == 1) {
+            return rootMoves[0];
+        }
+        int[] counts = new int[9];
+        for (int card : unseen) {
+            counts[card]++;
+        }
+        int[] wins = new int[count];
+        arrange(position, counts, new int[unseen.length], 0, rootMoves, count, wins);
+        int best = 0;
+        for (int i = 1; i < count; i++) {
+            if (wins[i] > wins[best]) {
+                best = i;
+            }
+        }
+        return rootMoves[best];
+    }
+
+    /**
+     * Goes through every distinct arrangement of the unseen cards and counts the wins of each root move.
+     *
+     * @param position
+     *          what the player knows of the round
+     * @param counts
+     *          the unseen cards not yet placed, by card value
+     * @param cards
+     *          the arrangement being built
+     * @param k
+     *          the number of cards placed
+     * @param rootMoves
+     *          the legal moves of the player
+     * @param count
+     *          the number of legal moves
+     * @param wins
+     *          the number of arrangements each move wins
+     */
+    private void arrange(Position position, int[] counts, int[] cards, int k, int[] rootMoves, int count, int[] wins) {
+        if (k == cards.length) {
+            State s = position.deal(cards);
+            for (int i = 0; i < count; i++) {
+                if (solve(s.apply(rootMoves[i]), 0) == position.current()) {
+                    wins[i]++;
+                }
+            }
+            return;
+        }
+        for (int card = 1; card <= 8; card++) {
+            if (counts[card] > 0) {
+                counts[card]--;
+                cards[k] = card;
+                arrange(position, counts, cards, k + 1, rootMoves, count, wins);
+                counts[card]++;
+            }
+        }
+    }
+
+    /**
+     * Finds the winner of a round of perfect information when every player plays to win.
+     * A player who cannot win plays their first legal move.
+     *
+     * @param s
+     *          the state
+     * @param depth
+     *          the search depth
+     *
+     * @return the winning seat
+     */
+    private int solve(State s, int depth) {
+        if (s.isOver()) {
+            return s.winner();
+        }
+        int idx = s.hashCode() & mask;
+        int key = idx * 3;
+        if (winners[idx] != 0 && keys[key] == s.deck() && keys[key + 1] == s.table() && keys[key + 2] == s.used()) {
+            return winners[idx] - 1;
+        }
+        int seat = s.current();
+        int[] list = moves[depth];
+        int n = perfectMoves(s, list);
+        int winner = -1;
+        for (int i = 0; i < n; i++) {
+            int w = solve(s.apply(list[i]), depth + 1);
+            if (w == seat) {
+                winner = seat;
+                break;
+            } else if (winner == -1) {
+                winner = w;
+            }
+        }
+        keys[key] = s.deck();
+        keys[key + 1] = s.table();
+        keys[key + 2] = s.used();
+        winners[idx] = (byte) (winner + 1);
+        return winner;
+    }
+
+    /**
+     * Lists the legal moves of the player to move when every card is known.
+     * All wrong guesses of a guard have the same effect, so only the right guess
+     * and one wrong guess are kept for each target.
+     *
+     * @param s
+     *          the state
+     * @param list
+     *          receives the packed moves
+     *
+     * @return the number of moves
+     */
+    private static int perfectMoves(State s, int[] list) {
+        int n = s.searchMoves(list);
+        int kept = 0;
+        int wrongGuessed = 0;
+        for (int i = 0; i < n; i++) {
+            int move = list[i];
+            int guess = Move.guess(move);
+            if (guess != 0) {
+                int target = Move.target(move);
+                int bit = 1 << (target + 8 * Move.slot(move));
+                if (s.hand(target, 0) != guess) {
+                    if ((wrongGuessed & bit) != 0) {
+                        continue;
+                    }
+                    wrongGuessed |= bit;
+                }
+            }
+            list[kept++] = move;
+        }
+        return kept;
+    }
+
+}
@@ -0,0 +1,196 @@
+package ai;
+
+import controller.Agent;
+import controller.GameListener;
+import controller.Player;
+import controller.PlayerList;
+import model.Card;
+import model.Deck;
+
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Computer opponent that plays a few simple rules on top of a BeliefTracker.
+ * It guesses the most likely card with a guard, duels with a baron only when it is likely to win,
+ * and otherwise keeps its highest card. Guard and baron odds are looked up in the OddsTables.
+ * It must be notified of the game's events, for which it is also a GameListener.
+ */
+public class HeuristicAgent implements Agent, GameListener {
+
+    /**
+     * The chance a guard guess must have before the guard is played for it.
+     */
+    private static final double GUARD_ODDS = 0.5;
+    /**
+     * The chance of winning a baron duel must have before the baron is played for it.
+     */
+    private static final double BARON_ODDS = 0.6;
+
+    /**
+     * The source of randomness.
+     */
+    private final RandomGenerator random;
+    /**
+     * What each player can tell about the others' cards.
+     */
+    private final BeliefTracker beliefs;
+
+    /**
+     * Public constructor for a HeuristicAgent object.
+     *
+     * @param random
+     *          the source of randomness
+     */
+    public HeuristicAgent(RandomGenerator random) {
+        this.random = random;
+        this.beliefs = new BeliefTracker();
+    }
+
+    @Override
+    public int chooseCard(Player user, PlayerList players, Deck deck) {
+        Card first = user.hand().peek(0);
+        Card second = user.hand().peek(1);
+        if (first == Card.PRINCESS || second == Card.PRINCESS) {
+            return first == Card.PRINCESS ? 1 : 0;
+        }
+        List<Player> targets = players.getTargets(user);
+        if (!targets.isEmpty()) {
+            if (first == Card.GUARD || second == Card.GUARD) {
+                for (Player target : targets) {
+                    if (guessOdds(user, target) >= GUARD_ODDS) {
+                        return first == Card.GUARD ? 0 : 1;
+                    }
+                }
+            }
+            if (first == Card.BARON || second == Card.BARON) {
+                Card kept = first == Card.BARON ? second : first;
+                for (Player target : targets) {
+                    if (duelOdds(user, target, kept) >= BARON_ODDS) {
+                        return first == Card.BARON ? 0 : 1;
+                    }
+                }
+                if (kept != Card.BARON) {
+                    return first == Card.BARON ? 1 : 0;
+                }
+            }
+        }
+        if (first.value() == second.value()) {
+            return random.nextInt(2);
+        }
+        return first.value() < second.value() ? 0 : 1;
+    }
+
+    @Override
+    public Player chooseOpponent(Player user, Card card, PlayerList players) {
+        List<Player> targets = players.getTargets(user);
+        Player best = null;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (Player target : targets) {
+            double score;
+            if (card == Card.GUARD) {
+                score = guessOdds(user, target);
+            } else if (card == Card.BARON) {
+                score = duelOdds(user, target, user.hand().peek(0));
+            } else if (card == Card.PRIEST) {
+                score = beliefs.known(user, target) == null ? 1 : 0;
+            } else if (card == Card.PRINCE) {
+                double[] p = beliefs.belief(user, target);
+                score = 10 * p[Card.PRINCESS.ordinal()] + expectedValue(p);
+            } else {
+                score = expectedValue(beliefs.belief(user, target));
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                best = target;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public Card chooseGuess(Player user, Player opponent, PlayerList players) {
+        Card card = beliefs.known(user, opponent);
+        if (card != null && card != Card.GUARD) {
+            return card;
+        }
+        return OddsTables.bestGuess(beliefs.pool(user, opponent));
+    }
+
+    /**
+     * Computes the chance of the best guard guess at a target.
+     *
+     * @param user
+     *          the player guessing
+     * @param target
+     *          the player guessed at
+     *
+     * @return the chance of guessing right
+     */
+    private double guessOdds(Player user, Player target) {
+        Card card = beliefs.known(user, target);
+        if (card != null) {
+            return card == Card.GUARD ? 0 : 1;
+        }
+        return OddsTables.guessOdds(beliefs.pool(user, target));
+    }
+
+    /**
+     * Computes the chance of a target holding a card lower than the one kept.
+     *
+     * @param user
+     *          the player dueling
+     * @param target
+     *          the player dueled
+     * @param kept
+     *          the card the user keeps
+     *
+     * @return the chance of winning the duel
+     */
+    private double duelOdds(Player user, Player target, Card kept) {
+        Card card = beliefs.known(user, target);
+        if (card != null) {
+            return card.ordinal() < kept.ordinal() ? 1 : 0;
+        }
+        return OddsTables.duelOdds(kept, beliefs.pool(user, target));
+    }
+
+    private static double expectedValue(double[] p) {
+        double value = 0;
+        for (int i = 0; i < p.length; i++) {
+            value += (i + 1) * p[i];
+        }
+        return value;
+    }
+
+    @Override
+    public void roundStarted(PlayerList players, Deck deck) {
+        beliefs.roundStarted(players, deck);
+    }
+
+    @Override
+    public void cardPlayed(Player user, Card card, Player target, Card guess) {
+        beliefs.cardPlayed(user, card, target, guess);
+    }
+
+    @Override
+    public void guardGuessed(Player user, Player opponent, Card guess, boolean correct) {
+        beliefs.guardGuessed(user, opponent, guess, correct);
+    }
+
+    @Override
+    public void priestRevealed(Player user, Player opponent, Card card) {
+        beliefs.priestRevealed(user, opponent, card);
+    }
+
+    @Override
+    public void baronCompared(Player user, Player opponent, Player loser, boolean tied) {
+        beliefs.baronCompared(user, opponent, loser, tied);
+    }
+
+    @Override
+    public void princeDiscarded(Player opponent, Card discarded, Card drawn) {
+        beliefs.princeDiscarded(opponent, discarded, drawn);
+    }
+
+}
@@ -0,0 +1,383 @@
+package ai;
+
+import controller.Agent;
+import controller.Player;
+import controller.PlayerList;
+import model.Card;
+import model.Deck;
+import model.Move;
+import sim.State;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.random.RandomGenerator;
+
+/**
+ * Computer opponent that searches with information-set Monte Carlo tree search.
+ * Every iteration deals the cards the agent cannot see at random (a determinization), walks one tree
+ * of information sets down to a new node and finishes the round with random play on a sim.State,
+ * which follows the rules of the Game. Opponent moves are part of the tree, and a move only competes
+ * at a node in the iterations where it is legal. Tree edges are actions, the played card with its
+ * target and guess, rather than packed moves: a hand slot holds different cards in different
+ * determinizations, a card does not.
+ *
+ * Each decision runs the search on several threads at once, every thread growing its own tree
+ * (root parallelism), until the time budget runs out. Every thread checks the deadline before each
+ * iteration, so joining the trees at the deadline waits for one iteration at most. The move visited
+ * most across all trees is played.
+ * The whole move is chosen with the card, so the target and guess asked for next are answered from it.
+ * Once few enough cards are unseen, the decision is taken by an EndgameSolver instead.
+ * Tables with more than State.MAX_SEATS seats are played at random.
+ */
+public class MctsAgent implements Agent {
+
+    /**
+     * The exploration constant of the UCB selection rule.
+     */
+    private static final double EXPLORATION = 0.7;
+
+    private static final Card[] CARDS = Card.values();
+
+    /**
+     * The source of randomness, used to seed each search thread.
+     */
+    private final RandomGenerator random;
+    /**
+     * The time budget of each decision, in nanoseconds.
+     */
+    private final long budget;
+    /**
+     * The number of trees grown in parallel.
+     */
+    private final int threads;
+    /**
+     * The solver taking the decisions at the end of a round.
+     */
+    private final EndgameSolver endgame;
+    /**
+     * The agent playing the decisions the search does not cover.
+     */
+    private final RandomAgent fallback;
+    /**
+     * The searched decisions shared with other agents, null if there is none.
+     */
+    private PolicyCache cache;
+    /**
+     * The move chosen with the last card, -1 if none.
+     */
+    private int chosen;
+    /**
+     * The card of the chosen move.
+     */
+    private Card chosenCard;
+
+    /**
+     * Public constructor for a MctsAgent object.
+     *
+     * @param random
+     *          the source of randomness
+     * @param millis
+     *          the time budget of each decision, in milliseconds
+     * @param threads
+     *          the number of trees grown in parallel, 1 to search on the calling thread only
+     */
+    public MctsAgent(RandomGenerator random, long millis, int threads) {
+        if (millis <= 0 || threads <= 0) {
+            throw new IllegalArgumentException("The time budget and thread count must be positive");
+        }
+        this.random = random;
+        this.budget = millis * 1_000_000L;
+        this.threads = threads;
+        this.endgame = new EndgameSolver(16);
+        this.fallback = new RandomAgent(random);
+        this.chosen = -1;
+    }
+
+    @Override
+    public int chooseCard(Player user, PlayerList players, Deck deck) {
+        chosen = -1;
+        if (players.size() > State.MAX_SEATS) {
+            return fallback.chooseCard(user, players, deck);
+        }
+        Position position = new Position(user, players, deck);
+        if (position.unseen().length <= EndgameSolver.MAX_UNSEEN) {
+            chosen = endgame.bestMove(position);
+        } else {
+            chosen = search(position);
+        }
+        chosenCard = user.hand().peek(Move.slot(chosen));
+        return Move.slot(chosen);
+    }
+
+    @Override
+    public Player chooseOpponent(Player user, Card card, PlayerList players) {
+        if (chosen != -1 && card == chosenCard && Move.target(chosen) != Move.NO_TARGET) {
+            Player opponent = players.getSeat(Move.target(chosen));
+            if (players.isValidTarget(user, opponent)) {
+                return opponent;
+            }
+        }
+        return fallback.chooseOpponent(user, card, players);
+    }
+
+    @Override
+    public Card chooseGuess(Player user, Player opponent, PlayerList players) {
+        if (chosen != -1 && chosenCard == Card.GUARD && Move.guess(chosen) > 1) {
+            return CARDS[Move.guess(chosen) - 1];
+        }
+        return fallback.chooseGuess(user, opponent, players);
+    }
+
+    /**
+     * Shares the searched decisions of the agent through a cache. A position found in the cache is answered
+     * with the move stored there instead of being searched again. Positions are keyed by Position.hash, which
+     * covers everything the search starts from, so two decisions share an entry only if the search could not
+     * tell them apart. Moves are stored against the sorted hand, since the key ignores the order of the hand.
+     *
+     * @param cache
+     *          the cache, null to search every decision
+     */
+    public void setCache(PolicyCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Searches for the best move of the player to move, or looks it up in the cache.
+     *
+     * @param root
+     *          what the player knows of the round
+     *
+     * @return the packed move
+     */
+    private int search(Position root) {
+        long key = 0;
+        if (cache != null) {
+            key = root.hash();
+            long entry = cache.get(key);
+            if (entry != PolicyCache.MISS) {
+                return root.sorted(PolicyCache.move(entry));
+            }
+        }
+        int[] rootMoves = new int[Move.MAX_MOVES];
+        State first = root.determinize(new SplittableRandom(random.nextLong()));
+        int count = first.searchMoves(rootMoves);
+        if (count == 1) {
+            return rootMoves[0];
+        }
+        int[] rootActions = new int[count];
+        for (int i = 0; i < count; i++) {
+            rootActions[i] = action(first, rootMoves[i]);
+        }
+        long deadline = System.nanoTime() + budget;
+        List<ForkJoinTask<int[]>> tasks = new ArrayList<>();
+        for (int t = 1; t < threads; t++) {
+            long seed = random.nextLong();
+            tasks.add(ForkJoinPool.commonPool().submit(() -> grow(root, rootActions, count, deadline, seed)));
+        }
+        int[] visits = grow(root, rootActions, count, deadline, random.nextLong());
+        for (ForkJoinTask<int[]> task : tasks) {
+            int[] more = task.join();
+            for (int i = 0; i < count; i++) {
+                visits[i] += more[i];
+            }
+        }
+        int best = 0;
+        int total = visits[0];
+        for (int i = 1; i < count; i++) {
+            total += visits[i];
+            if (visits[i] > visits[best]) {
+                best = i;
+            }
+        }
+        if (cache != null) {
+            cache.put(key, root.sorted(rootMoves[best]), (float) visits[best] / Math.max(total, 1));
+        }
+        return rootMoves[best];
+    }
+
+    /**
+     * Grows one search tree until the deadline, checked before every iteration.
+     *
+     * @param root
+     *          what the player knows of the round
+     * @param rootActions
+     *          the legal actions of the player, as built by action
+     * @param count
+     *          the number of legal actions
+     * @param deadline
+     *          the System.nanoTime at which to stop
+     * @param seed
+     *          the seed of the tree's randomness
+     *
+     * @return the number of visits of each root action
+     */
+    private static int[] grow(Position root, int[] rootActions, int count, long deadline, long seed) {
+        SplittableRandom rng = new SplittableRandom(seed);
+        Node tree = new Node(null, -1, -1);
+        int[] moves = new int[Move.MAX_MOVES];
+        while (System.nanoTime() < deadline) {
+            State s = root.determinize(rng);
+            Node node = tree;
+            while (!s.isOver()) {
+                int n = s.searchMoves(moves);
+                for (int i = 0; i < n; i++) {
+                    moves[i] = action(s, moves[i]);
+                }
+                int untried = 0;
+                Node best = null;
+                double bestScore = Double.NEGATIVE_INFINITY;
+                for (int i = 0; i < n; i++) {
+                    Node child = node.child(moves[i]);
+                    if (child == null) {
+                        moves[untried++] = moves[i];
+                    } else {
+                        child.available++;
+                        double score = child.wins / child.visits
+                                + EXPLORATION * Math.sqrt(Math.log(child.available) / child.visits);
+                        if (score > bestScore) {
+                            bestScore = score;
+                            best = child;
+                        }
+                    }
+                }
+                if (untried > 0) {
+                    int action = moves[rng.nextInt(untried)];
+                    node = node.add(action, s.current());
+                    s = s.apply(move(s, action));
+                    break;
+                }
+                node = best;
+                s = s.apply(move(s, best.action));
+            }
+            while (!s.isOver()) {
+                s = s.apply(rolloutMove(s, moves, rng));
+            }
+            int winner = s.winner();
+            for (Node v = node; v != null; v = v.parent) {
+                v.visits++;
+                if (v.mover == winner) {
+                    v.wins++;
+                }
+            }
+        }
+
+        int[] visits = new int[count];
+        for (int i = 0; i < count; i++) {
+            Node child = tree.child(rootActions[i]);
+            visits[i] = child == null ? 0 : child.visits;
+        }
+        return visits;
+    }
+
+    /**
+     * Turns a move into the action it stands for: the move with the value of the played card
+     * in bits 9-12, its slot bit cleared.
+     *
+     * @param s
+     *          the state the move is legal in
+     * @param move
+     *          the packed move
+     *
+     * @return the action
+     */
+    private static int action(State s, int move) {
+        return move & ~1 | s.hand(s.current(), Move.slot(move)) << 9;
+    }
+
+    /**
+     * Turns an action back into the move playing it.
+     *
+     * @param s
+     *          the state the action is legal in
+     * @param action
+     *          the action
+     *
+     * @return the packed move
+     */
+    private static int move(State s, int action) {
+        int slot = s.hand(s.current(), 0) == action >>> 9 ? 0 : 1;
+        return Move.of(slot, Move.target(action), Move.guess(action));
+    }
+
+    /**
+     * Picks a random legal move, avoiding the princess while another card can be played.
+     *
+     * @param s
+     *          the state
+     * @param moves
+     *          scratch space for the legal moves
+     * @param rng
+     *          the source of randomness
+     *
+     * @return the packed move
+     */
+    private static int rolloutMove(State s, int[] moves, RandomGenerator rng) {
+        int n = s.searchMoves(moves);
+        int i = rng.nextInt(n);
+        if (n > 1 && s.hand(s.current(), Move.slot(moves[i])) == 8) {
+            i = (i + 1 + rng.nextInt(n - 1)) % n;
+        }
+        return moves[i];
+    }
+
+    /**
+     * A node of a search tree: an information set reached by an action.
+     */
+    private static final class Node {
+
+        private final Node parent;
+        /**
+         * The action that leads here.
+         */
+        private final int action;
+        /**
+         * The seat that took the action.
+         */
+        private final int mover;
+        private Node[] children;
+        private int childCount;
+        /**
+         * The number of iterations through this node.
+         */
+        private int visits;
+        /**
+         * The number of iterations in which the action was legal at the parent.
+         */
+        private int available;
+        /**
+         * The number of rounds won by the mover after this action.
+         */
+        private double wins;
+
+        Node(Node parent, int action, int mover) {
+            this.parent = parent;
+            this.action = action;
+            this.mover = mover;
+            this.children = new Node[4];
+            this.available = 1;
+        }
+
+        Node child(int action) {
+            for (int i = 0; i < childCount; i++) {
+                if (children[i].action == action) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        Node add(int action, int mover) {
+            if (childCount == children.length) {
+                children = Arrays.copyOf(children, childCount * 2);
+            }
+            Node child = new Node(this, action, mover);
+            children[childCount++] = child;
+            return child;
+        }
+    }
+
+}
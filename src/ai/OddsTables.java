@@ -0,0 +1,133 @@
+package ai;
+
+import model.Card;
+
+/**
+ * Precomputed odds of baron duels and guard guesses against a card drawn from a pool of unseen cards.
+ * A pool is a multiset of the deck built by Deck.buildDeck, held as a mixed-radix index with one digit
+ * per card giving its copies, so the 3888 possible pools index flat tables directly.
+ * Each table entry is a count of cards, turned into a chance by the size of the pool, so the
+ * tables take about 43 KB and give the same odds as counting the pool by hand.
+ * The tables are built once, when the class is loaded.
+ */
+public final class OddsTables {
+
+    private static final Card[] CARDS = Card.values();
+    /**
+     * The weight of each card's digit in a pool index.
+     */
+    private static final int[] RADIX = new int[CARDS.length];
+    /**
+     * The number of pools.
+     */
+    public static final int POOLS;
+
+    static {
+        int weight = 1;
+        for (Card card : CARDS) {
+            RADIX[card.ordinal()] = weight;
+            weight *= card.copies() + 1;
+        }
+        POOLS = weight;
+    }
+
+    /**
+     * The number of cards in each pool.
+     */
+    private static final byte[] SIZE = new byte[POOLS];
+    /**
+     * LOWER[kept * POOLS + pool] is the number of cards of the pool lower than the card kept, by ordinal.
+     */
+    private static final byte[] LOWER = new byte[CARDS.length * POOLS];
+    /**
+     * The ordinal of the most common card of each pool other than the guard, the lowest on ties.
+     */
+    private static final byte[] GUESS = new byte[POOLS];
+    /**
+     * The number of copies of the best guess in each pool.
+     */
+    private static final byte[] GUESS_COUNT = new byte[POOLS];
+
+    static {
+        int[] counts = new int[CARDS.length];
+        for (int pool = 0; pool < POOLS; pool++) {
+            int size = 0;
+            for (Card card : CARDS) {
+                counts[card.ordinal()] = pool / RADIX[card.ordinal()] % (card.copies() + 1);
+                size += counts[card.ordinal()];
+            }
+            SIZE[pool] = (byte) size;
+            int lower = 0;
+            for (int kept = 0; kept < CARDS.length; kept++) {
+                LOWER[kept * POOLS + pool] = (byte) lower;
+                lower += counts[kept];
+            }
+            int best = Card.PRIEST.ordinal();
+            for (int i = best + 1; i < CARDS.length; i++) {
+                if (counts[i] > counts[best]) {
+                    best = i;
+                }
+            }
+            GUESS[pool] = (byte) best;
+            GUESS_COUNT[pool] = (byte) counts[best];
+        }
+    }
+
+    private OddsTables() {
+    }
+
+    /**
+     * Gets the index of a pool.
+     *
+     * @param counts
+     *          the copies of each card in the pool, by ordinal, each between 0 and the card's copies
+     *
+     * @return the pool index
+     */
+    public static int index(int[] counts) {
+        int pool = 0;
+        for (int i = 0; i < CARDS.length; i++) {
+            pool += counts[i] * RADIX[i];
+        }
+        return pool;
+    }
+
+    /**
+     * Gets the chance of winning a baron duel while keeping a card, against a card drawn from a pool.
+     *
+     * @param kept
+     *          the card kept
+     * @param pool
+     *          the pool index
+     *
+     * @return the chance the other card is lower, 0 for an empty pool
+     */
+    public static double duelOdds(Card kept, int pool) {
+        return SIZE[pool] == 0 ? 0 : (double) LOWER[kept.ordinal() * POOLS + pool] / SIZE[pool];
+    }
+
+    /**
+     * Gets the best guard guess at a card drawn from a pool.
+     *
+     * @param pool
+     *          the pool index
+     *
+     * @return the most common card other than the guard, the lowest on ties
+     */
+    public static Card bestGuess(int pool) {
+        return CARDS[GUESS[pool]];
+    }
+
+    /**
+     * Gets the chance of the best guard guess at a card drawn from a pool being right.
+     *
+     * @param pool
+     *          the pool index
+     *
+     * @return the chance of guessing right, 0 for an empty pool
+     */
+    public static double guessOdds(int pool) {
+        return SIZE[pool] == 0 ? 0 : (double) GUESS_COUNT[pool] / SIZE[pool];
+    }
+
+}
@@ -0,0 +1,298 @@
+package ai;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A bounded cache of agent decisions, from the hash of what an agent knows of a position (Position.hash)
+ * to the move chosen there and its value, shared by the agents of every game thread.
+ *
+ * The cache is set-associative: a key can only live in the WAYS slots of the set it hashes to. Each slot
+ * counts its hits, and a key arriving in a full set replaces the slot with the fewest, so decisions that
+ * keep coming back stay while one-off ones make way. The counts of a set are halved when one of them
+ * saturates, so old favourites age out. Sets are guarded by striped StampedLocks; reads are optimistic
+ * and take no lock unless a write races them, and hit counts are bumped without locking, a lost bump
+ * only making the eviction a little less exact.
+ */
+public final class PolicyCache implements PolicyCacheMXBean {
+
+    /**
+     * Returned by get for a key not in the cache. No entry packs to it.
+     */
+    public static final long MISS = -1L;
+
+    /**
+     * The number of slots of each set.
+     */
+    private static final int WAYS = 8;
+    /**
+     * The number of locks the sets are striped over, a power of two.
+     */
+    private static final int STRIPES = 64;
+    /**
+     * The largest hit count of a slot.
+     */
+    private static final int MAX_FREQUENCY = 15;
+
+    /**
+     * The number of sets minus one; the number of sets is a power of two.
+     */
+    private final int setMask;
+    private final long[] keys;
+    /**
+     * The packed entries: the value's float bits above, the move below.
+     */
+    private final long[] entries;
+    /**
+     * The hit count of each slot plus one, 0 for an empty slot.
+     */
+    private final byte[] frequency;
+    private final StampedLock[] locks;
+
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder insertions;
+    private final LongAdder evictions;
+    private final LongAdder size;
+
+    /**
+     * Public constructor for a PolicyCache object.
+     *
+     * @param capacity
+     *          the largest number of entries, rounded up to a power of two of at least WAYS
+     */
+    public PolicyCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity must be positive");
+        }
+        int sets = Integer.highestOneBit(((capacity - 1) / WAYS + 1) * 2 - 1);
+        this.setMask = sets - 1;
+        this.keys = new long[sets * WAYS];
+        this.entries = new long[sets * WAYS];
+        this.frequency = new byte[sets * WAYS];
+        this.locks = new StampedLock[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new StampedLock();
+        }
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.insertions = new LongAdder();
+        this.evictions = new LongAdder();
+        this.size = new LongAdder();
+    }
+
+    /**
+     * Packs a move and its value into an entry.
+     *
+     * @param move
+     *          the packed move, not negative
+     * @param value
+     *          the value of the move
+     *
+     * @return the entry
+     */
+    public static long entry(int move, float value) {
+        return (long) Float.floatToIntBits(value) << 32 | move;
+    }
+
+    /**
+     * Gets the move of an entry.
+     *
+     * @param entry
+     *          the entry
+     *
+     * @return the packed move
+     */
+    public static int move(long entry) {
+        return (int) entry;
+    }
+
+    /**
+     * Gets the value of an entry.
+     *
+     * @param entry
+     *          the entry
+     *
+     * @return the value of the move
+     */
+    public static float value(long entry) {
+        return Float.intBitsToFloat((int) (entry >>> 32));
+    }
+
+    /**
+     * Looks up the decision taken at a position.
+     *
+     * @param key
+     *          the hash of the position
+     *
+     * @return the entry, MISS if there is none
+     */
+    public long get(long key) {
+        int set = set(key);
+        StampedLock lock = locks[set & (STRIPES - 1)];
+        long stamp = lock.tryOptimisticRead();
+        int slot = find(set, key);
+        long entry = slot < 0 ? MISS : entries[slot];
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                slot = find(set, key);
+                entry = slot < 0 ? MISS : entries[slot];
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        if (slot < 0) {
+            misses.increment();
+            return MISS;
+        }
+        hits.increment();
+        if (frequency[slot] <= MAX_FREQUENCY) {
+            frequency[slot]++;
+        }
+        return entry;
+    }
+
+    /**
+     * Stores the decision taken at a position, replacing the least used entry of its set if it is full.
+     *
+     * @param key
+     *          the hash of the position
+     * @param move
+     *          the packed move, not negative
+     * @param value
+     *          the value of the move
+     */
+    public void put(long key, int move, float value) {
+        int set = set(key);
+        StampedLock lock = locks[set & (STRIPES - 1)];
+        long stamp = lock.writeLock();
+        try {
+            int slot = find(set, key);
+            if (slot < 0) {
+                slot = victim(set);
+                if (frequency[slot] == 0) {
+                    size.increment();
+                } else {
+                    evictions.increment();
+                }
+                keys[slot] = key;
+                frequency[slot] = 1;
+                insertions.increment();
+            }
+            entries[slot] = entry(move, value);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Finds the slot of a key.
+     *
+     * @return the slot, -1 if the key is not in its set
+     */
+    private int find(int set, long key) {
+        int from = set * WAYS;
+        for (int slot = from; slot < from + WAYS; slot++) {
+            if (keys[slot] == key && frequency[slot] != 0) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Picks the slot a new key of a set goes to: an empty one, or the one with the fewest hits.
+     * Ages the counts of the set when one of them has saturated. Called under the write lock.
+     */
+    private int victim(int set) {
+        int from = set * WAYS;
+        int victim = from;
+        boolean saturated = false;
+        for (int slot = from; slot < from + WAYS; slot++) {
+            if (frequency[slot] == 0) {
+                return slot;
+            }
+            if (frequency[slot] < frequency[victim]) {
+                victim = slot;
+            }
+            saturated |= frequency[slot] > MAX_FREQUENCY;
+        }
+        if (saturated) {
+            for (int slot = from; slot < from + WAYS; slot++) {
+                frequency[slot] = (byte) Math.max(frequency[slot] >> 1, 1);
+            }
+        }
+        return victim;
+    }
+
+    private int set(long key) {
+        long z = key * 0x9E3779B97F4A7C15L;
+        return (int) (z ^ z >>> 32) & setMask;
+    }
+
+    @Override
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public double getHitRate() {
+        long h = hits.sum();
+        long lookups = h + misses.sum();
+        return lookups == 0 ? 0 : (double) h / lookups;
+    }
+
+    @Override
+    public long getInsertions() {
+        return insertions.sum();
+    }
+
+    @Override
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    @Override
+    public long getSize() {
+        return size.sum();
+    }
+
+    @Override
+    public int getCapacity() {
+        return keys.length;
+    }
+
+    /**
+     * Registers the cache with the platform MBean server, as loveletter:type=PolicyCache,name=name.
+     *
+     * @param name
+     *          the name of the cache
+     *
+     * @return the name the cache was registered under
+     */
+    public ObjectName register(String name) {
+        try {
+            ObjectName objectName = new ObjectName("loveletter:type=PolicyCache,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register the cache", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("policy cache %d/%d entries, hit rate %.3f (%d hits, %d misses), %d evictions",
+                getSize(), getCapacity(), getHitRate(), getHits(), getMisses(), getEvictions());
+    }
+
+}
@@ -0,0 +1,57 @@
+package ai;
+
+/**
+ * The attributes a PolicyCache exposes over JMX.
+ */
+public interface PolicyCacheMXBean {
+
+    /**
+     * Gets the number of lookups that found an entry.
+     *
+     * @return the number of hits
+     */
+    long getHits();
+
+    /**
+     * Gets the number of lookups that found no entry.
+     *
+     * @return the number of misses
+     */
+    long getMisses();
+
+    /**
+     * Gets the share of lookups that found an entry.
+     *
+     * @return the hit rate, 0 before the first lookup
+     */
+    double getHitRate();
+
+    /**
+     * Gets the number of keys added.
+     *
+     * @return the number of insertions
+     */
+    long getInsertions();
+
+    /**
+     * Gets the number of entries replaced to make room for new keys.
+     *
+     * @return the number of evictions
+     */
+    long getEvictions();
+
+    /**
+     * Gets the number of entries held.
+     *
+     * @return the number of entries
+     */
+    long getSize();
+
+    /**
+     * Gets the largest number of entries.
+     *
+     * @return the capacity
+     */
+    int getCapacity();
+
+}
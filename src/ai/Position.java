@@ -0,0 +1,222 @@
+package ai;
+
+import controller.Player;
+import controller.PlayerList;
+import model.Card;
+import model.Deck;
+import model.Move;
+import model.Zobrist;
+import sim.State;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * What the player to move knows of a round: their own hand and everything on the table.
+ * The cards they cannot see, the opponents' hands and the deck, are dealt to make a
+ * determinization of the round.
+ */
+final class Position {
+
+    private static final Card[] CARDS = Card.values();
+
+    /**
+     * The seat of the player to move.
+     */
+    private final int current;
+    /**
+     * The known hands by seat, packed as in State.of, 0 for hidden or empty hands.
+     */
+    private final int[] hands;
+    /**
+     * One bit per seat whose hand is hidden.
+     */
+    private final int hidden;
+    /**
+     * One bit per protected seat.
+     */
+    private final int protectedSeats;
+    /**
+     * The used piles by seat, as card counts indexed by card value.
+     */
+    private final int[][] used;
+    /**
+     * The values of the unseen cards, in ascending order.
+     */
+    private final int[] unseen;
+    /**
+     * The number of cards left in the deck.
+     */
+    private final int deckSize;
+
+    /**
+     * Constructor for a Position object, taken when a player is asked for a card.
+     *
+     * @param user
+     *          the player to move, holding two cards
+     * @param players
+     *          the list of players
+     * @param deck
+     *          the deck of cards, of which only the size is used
+     */
+    Position(Player user, PlayerList players, Deck deck) {
+        int seats = players.size();
+        this.current = user.getSeat();
+        this.hands = new int[seats];
+        this.used = new int[seats][9];
+        int[] remaining = new int[9];
+        for (Card card : CARDS) {
+            remaining[card.value()] = card.copies() - players.seen().count(card);
+        }
+        int hiddenSeats = 0;
+        int protectedMask = 0;
+        for (int seat = 0; seat < seats; seat++) {
+            Player p = players.getSeat(seat);
+            if (p.isProtected()) {
+                protectedMask |= 1 << seat;
+            }
+            for (Card card : CARDS) {
+                used[seat][card.value()] = p.used().count(card);
+            }
+            if (p == user) {
+                int first = user.hand().peek(0).value();
+                int second = user.hand().peek(1).value();
+                hands[seat] = first | second << 4;
+                remaining[first]--;
+                remaining[second]--;
+            } else if (p.hand().hasCards()) {
+                hiddenSeats |= 1 << seat;
+            }
+        }
+        this.hidden = hiddenSeats;
+        this.protectedSeats = protectedMask;
+        this.deckSize = deck.size();
+        this.unseen = new int[deckSize + Integer.bitCount(hiddenSeats)];
+        int k = 0;
+        for (int card = 1; card <= 8; card++) {
+            for (int i = 0; i < remaining[card]; i++) {
+                unseen[k++] = card;
+            }
+        }
+        if (k != unseen.length) {
+            throw new IllegalStateException("The unseen cards do not match the table");
+        }
+    }
+
+    /**
+     * Gets the seat of the player to move.
+     *
+     * @return the current seat
+     */
+    int current() {
+        return this.current;
+    }
+
+    /**
+     * Gets the number of cards left in the deck.
+     *
+     * @return the deck size
+     */
+    int deckSize() {
+        return this.deckSize;
+    }
+
+    /**
+     * Gets the unseen cards. The array is shared and must not be changed.
+     *
+     * @return the unseen card values, in ascending order
+     */
+    int[] unseen() {
+        return this.unseen;
+    }
+
+    /**
+     * Gets the Zobrist hash of the position: the seat to move, the known hands, the used piles,
+     * the protected seats, the seats still in the round and the deck size. The order of a hand is ignored.
+     *
+     * @return the hash
+     */
+    long hash() {
+        long h = Zobrist.turn(current) ^ Zobrist.deckSize(deckSize);
+        for (int seat = 0; seat < hands.length; seat++) {
+            int first = hands[seat] & 15;
+            int second = hands[seat] >>> 4;
+            if (first != 0) {
+                h ^= Zobrist.hand(seat, CARDS[first - 1], 0);
+            }
+            if (second != 0) {
+                h ^= Zobrist.hand(seat, CARDS[second - 1], first == second ? 1 : 0);
+            }
+            if (hands[seat] != 0 || (hidden >>> seat & 1) != 0) {
+                h ^= Zobrist.inRound(seat);
+            }
+            if ((protectedSeats >>> seat & 1) != 0) {
+                h ^= Zobrist.protection(seat);
+            }
+            for (int card = 1; card <= 8; card++) {
+                for (int copy = 0; copy < used[seat][card]; copy++) {
+                    h ^= Zobrist.used(seat, CARDS[card - 1], copy);
+                }
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Converts between a move of the player to move and the same move with their hand sorted in ascending
+     * order, so that a move kept against the hash, which ignores the order of the hand, plays the same card.
+     * The conversion is its own inverse.
+     *
+     * @param move
+     *          the packed move
+     *
+     * @return the converted move
+     */
+    int sorted(int move) {
+        int first = hands[current] & 15;
+        int second = hands[current] >>> 4;
+        if (first <= second) {
+            return move;
+        }
+        return Move.of(Move.slot(move) ^ 1, Move.target(move), Move.guess(move));
+    }
+
+    /**
+     * Deals the unseen cards at random to the opponents' hands and the deck.
+     *
+     * @param rng
+     *          the source of randomness
+     *
+     * @return the determinized state
+     */
+    State determinize(RandomGenerator rng) {
+        int[] cards = unseen.clone();
+        for (int i = cards.length - 1; i > 0; i--) {
+            int j = rng.nextInt(i + 1);
+            int tmp = cards[i];
+            cards[i] = cards[j];
+            cards[j] = tmp;
+        }
+        return deal(cards);
+    }
+
+    /**
+     * Deals an arrangement of the unseen cards: the deck takes them from the start,
+     * the hidden hands from the end.
+     *
+     * @param cards
+     *          an arrangement of the unseen card values
+     *
+     * @return the determinized state
+     */
+    State deal(int[] cards) {
+        int[] dealt = hands.clone();
+        int k = cards.length;
+        for (int seat = 0; seat < dealt.length; seat++) {
+            if ((hidden >>> seat & 1) != 0) {
+                dealt[seat] = cards[--k];
+            }
+        }
+        return State.of(current, dealt, protectedSeats, used, cards, deckSize);
+    }
+
+}
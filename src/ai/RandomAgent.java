@@ -0,0 +1,55 @@
+package ai;
+
+import controller.Agent;
+import controller.Player;
+import controller.PlayerList;
+import model.Card;
+import model.Deck;
+
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Computer opponent that makes every decision at random.
+ * It never plays the princess while it holds another card.
+ */
+public class RandomAgent implements Agent {
+
+    /**
+     * The source of randomness.
+     */
+    private RandomGenerator random;
+
+    /**
+     * Public constructor for a RandomAgent object.
+     *
+     * @param random
+     *          the source of randomness
+     */
+    public RandomAgent(RandomGenerator random) {
+        this.random = random;
+    }
+
+    @Override
+    public int chooseCard(Player user, PlayerList players, Deck deck) {
+        if (user.hand().peek(0) == Card.PRINCESS) {
+            return 1;
+        } else if (user.hand().peek(1) == Card.PRINCESS) {
+            return 0;
+        }
+        return random.nextInt(2);
+    }
+
+    @Override
+    public Player chooseOpponent(Player user, Card card, PlayerList players) {
+        List<Player> targets = players.getTargets(user);
+        return targets.get(random.nextInt(targets.size()));
+    }
+
+    @Override
+    public Card chooseGuess(Player user, Player opponent, PlayerList players) {
+        Card[] cards = Card.values();
+        return cards[1 + random.nextInt(cards.length - 1)];
+    }
+
+}
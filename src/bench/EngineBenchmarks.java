@@ -0,0 +1,134 @@
+package bench;
+
+import ai.RandomAgent;
+import controller.Game;
+import controller.Hand;
+import controller.PlayerList;
+import controller.UsedPile;
+import model.Card;
+import model.Deck;
+import sim.LockstepSimulator;
+
+import java.io.IOException;
+import java.util.SplittableRandom;
+
+/**
+ * Benchmarks of the engine hot paths, from single deck operations up to full games.
+ *
+ * Usage: EngineBenchmarks [--save file] [--baseline file] [--tolerance fraction]
+ * With --baseline the process exits with status 1 if any benchmark regressed.
+ */
+public class EngineBenchmarks {
+
+    /**
+     * The number of seats in simulated rounds and games.
+     */
+    private static final int SEATS = 4;
+    /**
+     * The number of rounds the lockstep simulator plays per operation.
+     */
+    private static final int LOCKSTEP_ROUNDS = 1024;
+
+    /**
+     * Runs all benchmarks.
+     *
+     * @param args
+     *          the command line options
+     *
+     * @throws IOException
+     *          if a baseline file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        String save = null;
+        String baseline = null;
+        double tolerance = 0.2;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("--save")) {
+                save = args[i + 1];
+            } else if (args[i].equals("--baseline")) {
+                baseline = args[i + 1];
+            } else if (args[i].equals("--tolerance")) {
+                tolerance = Double.parseDouble(args[i + 1]);
+            }
+        }
+
+        Harness h = new Harness(3, 5);
+        SplittableRandom random = new SplittableRandom(42);
+
+        Deck built = new Deck(random.split());
+        h.measure("deck.buildAndDeal", () -> {
+            built.buildDeck();
+            long sum = 0;
+            while (built.hasMoreCards()) {
+                sum += built.dealCard().value();
+            }
+            return sum;
+        });
+
+        Deck shuffled = new Deck(random.split());
+        shuffled.buildDeck();
+        h.measure("deck.shuffleDeck", () -> {
+            shuffled.shuffleDeck();
+            return 1;
+        });
+
+        Deck dealt = new Deck(random.split());
+        h.measure("deck.dealCard", () -> {
+            if (!dealt.hasMoreCards()) {
+                dealt.buildDeck();
+            }
+            return dealt.dealCard().value();
+        });
+
+        PlayerList rotation = newPlayers(random);
+        h.measure("playerList.getCurrentPlayer", () -> rotation.getCurrentPlayer().getBlockCount());
+
+        UsedPile used = new UsedPile();
+        used.add(Card.GUARD);
+        used.add(Card.BARON);
+        used.add(Card.PRINCE);
+        used.add(Card.HANDMAIDEN);
+        h.measure("usedPile.value", used::value);
+
+        Hand hand = new Hand();
+        hand.add(Card.PRIEST);
+        hand.add(Card.KING);
+        h.measure("hand.royaltyPos", hand::royaltyPos);
+
+        Game round = new Game(newPlayers(random), new Deck(random.split()), null);
+        h.measure("game.round", () -> round.playRound().getBlockCount());
+
+        LockstepSimulator lockstep = new LockstepSimulator(LOCKSTEP_ROUNDS, SEATS);
+        h.measure("lockstep.rounds" + LOCKSTEP_ROUNDS, () -> lockstep.simulate(LOCKSTEP_ROUNDS, random.nextLong())[0]);
+
+        h.measure("game.full", () -> {
+            PlayerList players = newPlayers(random);
+            new Game(players, new Deck(random.split()), null).start();
+            return players.getGameWinner().getBlockCount();
+        });
+
+        if (save != null) {
+            h.save(save);
+        }
+        if (baseline != null && h.compare(baseline, tolerance) > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Creates a table of random agents.
+     *
+     * @param random
+     *          the source of the agents' randomness
+     *
+     * @return the list of players
+     */
+    private static PlayerList newPlayers(SplittableRandom random) {
+        PlayerList players = new PlayerList();
+        for (int i = 0; i < SEATS; i++) {
+            players.addPlayer("Player " + i, new RandomAgent(random.split()));
+        }
+        return players;
+    }
+
+}
@@ -0,0 +1,229 @@
+package bench;
+
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.LongSupplier;
+
+/**
+ * Small micro-benchmark harness measuring throughput and allocation of an operation.
+ * Every benchmark is warmed up, then timed over several fixed-length iterations on the
+ * calling thread. Allocation is read from the per-thread allocation counter of the JVM.
+ * Results can be saved as a baseline and later compared against it as a regression gate.
+ */
+public class Harness {
+
+    /**
+     * Length of one warmup or measurement iteration in nanoseconds.
+     */
+    private static final long ITERATION_NANOS = 500_000_000L;
+    /**
+     * Number of operations run between two clock reads.
+     */
+    private static final int BATCH = 64;
+
+    /**
+     * The thread bean used to read allocated bytes.
+     */
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    /**
+     * The number of warmup iterations.
+     */
+    private int warmups;
+    /**
+     * The number of measurement iterations.
+     */
+    private int iterations;
+    /**
+     * The results measured so far.
+     */
+    private List<Result> results;
+    /**
+     * Sink for the values returned by operations, so the JIT cannot remove them.
+     */
+    private volatile long sink;
+
+    /**
+     * Public constructor for a Harness object.
+     *
+     * @param warmups
+     *          the number of warmup iterations
+     * @param iterations
+     *          the number of measurement iterations
+     */
+    public Harness(int warmups, int iterations) {
+        this.warmups = warmups;
+        this.iterations = iterations;
+        this.results = new ArrayList<>();
+    }
+
+    /**
+     * Measures an operation and prints its result.
+     *
+     * @param name
+     *          the benchmark name
+     * @param op
+     *          the operation; its return value is consumed
+     *
+     * @return the result
+     */
+    public Result measure(String name, LongSupplier op) {
+        for (int i = 0; i < warmups; i++) {
+            iteration(op);
+        }
+        double opsPerSecond = 0;
+        double bytesPerOp = 0;
+        for (int i = 0; i < iterations; i++) {
+            long bytes = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            long ops = iteration(op);
+            long elapsed = System.nanoTime() - start;
+            bytes = threads.getCurrentThreadAllocatedBytes() - bytes;
+            opsPerSecond += ops * 1e9 / elapsed;
+            bytesPerOp += (double) bytes / ops;
+        }
+        Result result = new Result(name, opsPerSecond / iterations, bytesPerOp / iterations);
+        results.add(result);
+        System.out.println(result);
+        return result;
+    }
+
+    /**
+     * Runs the operation in batches until the iteration time is up.
+     *
+     * @param op
+     *          the operation
+     *
+     * @return the number of operations run
+     */
+    private long iteration(LongSupplier op) {
+        long ops = 0;
+        long acc = 0;
+        long end = System.nanoTime() + ITERATION_NANOS;
+        do {
+            for (int i = 0; i < BATCH; i++) {
+                acc += op.getAsLong();
+            }
+            ops += BATCH;
+        } while (System.nanoTime() < end);
+        sink = acc;
+        return ops;
+    }
+
+    /**
+     * Saves the results measured so far.
+     *
+     * @param file
+     *          the baseline file
+     *
+     * @throws IOException
+     *          if the file cannot be written
+     */
+    public void save(String file) throws IOException {
+        Properties p = new Properties();
+        for (Result r : results) {
+            p.setProperty(r.name + ".ops", Double.toString(r.opsPerSecond));
+            p.setProperty(r.name + ".bytes", Double.toString(r.bytesPerOp));
+        }
+        try (FileWriter w = new FileWriter(file)) {
+            p.store(w, "Love Letter benchmark baseline");
+        }
+    }
+
+    /**
+     * Compares the results measured so far with a saved baseline.
+     * A benchmark regresses if its throughput falls by more than the tolerance
+     * or it allocates more than the tolerance (plus 16 bytes of noise) per operation.
+     *
+     * @param file
+     *          the baseline file
+     * @param tolerance
+     *          the allowed relative change, e.g. 0.1 for 10%
+     *
+     * @return the number of regressions
+     *
+     * @throws IOException
+     *          if the file cannot be read
+     */
+    public int compare(String file, double tolerance) throws IOException {
+        Properties p = new Properties();
+        try (FileReader r = new FileReader(file)) {
+            p.load(r);
+        }
+        int regressions = 0;
+        for (Result r : results) {
+            String ops = p.getProperty(r.name + ".ops");
+            String bytes = p.getProperty(r.name + ".bytes");
+            if (ops == null || bytes == null) {
+                System.out.println(r.name + ": no baseline");
+                continue;
+            }
+            double baseOps = Double.parseDouble(ops);
+            double baseBytes = Double.parseDouble(bytes);
+            if (r.opsPerSecond < baseOps * (1 - tolerance)) {
+                System.out.printf("REGRESSION %s: %.0f ops/s, baseline %.0f ops/s%n", r.name, r.opsPerSecond, baseOps);
+                regressions++;
+            }
+            if (r.bytesPerOp > baseBytes * (1 + tolerance) + 16) {
+                System.out.printf("REGRESSION %s: %.1f B/op, baseline %.1f B/op%n", r.name, r.bytesPerOp, baseBytes);
+                regressions++;
+            }
+        }
+        return regressions;
+    }
+
+    /**
+     * The measured throughput and allocation rate of one benchmark.
+     */
+    public static class Result {
+
+        private final String name;
+        private final double opsPerSecond;
+        private final double bytesPerOp;
+
+        Result(String name, double opsPerSecond, double bytesPerOp) {
+            this.name = name;
+            this.opsPerSecond = opsPerSecond;
+            this.bytesPerOp = bytesPerOp;
+        }
+
+        /**
+         * Gets the benchmark name.
+         *
+         * @return the name
+         */
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * Gets the throughput.
+         *
+         * @return operations per second
+         */
+        public double getOpsPerSecond() {
+            return this.opsPerSecond;
+        }
+
+        /**
+         * Gets the allocation rate.
+         *
+         * @return bytes allocated per operation
+         */
+        public double getBytesPerOp() {
+            return this.bytesPerOp;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-28s %14.0f ops/s %10.1f B/op %8.1f MB/s",
+                    name, opsPerSecond, bytesPerOp, opsPerSecond * bytesPerOp / 1e6);
+        }
+    }
+
+}
@@ -0,0 +1,56 @@
+package controller;
+
+import model.Card;
+import model.Deck;
+
+/**
+ * Makes the decisions for a Player during the game.
+ * An agent may be a person at the console or a computer opponent.
+ */
+public interface Agent {
+
+    /**
+     * Chooses which card of the user's hand to play.
+     * The Countess rule is enforced by the game before the agent is asked.
+     *
+     * @param user
+     *          the current player, holding two cards
+     * @param players
+     *          the list of players
+     * @param deck
+     *          the deck of cards
+     *
+     * @return the position of the card to play (0 for first, 1 for second)
+     */
+    int chooseCard(Player user, PlayerList players, Deck deck);
+
+    /**
+     * Chooses the target of a played card.
+     * Only called when at least one valid target exists.
+     *
+     * @param user
+     *          the player of the card
+     * @param card
+     *          the played card
+     * @param players
+     *          the list of players
+     *
+     * @return the targeted player
+     */
+    Player chooseOpponent(Player user, Card card, PlayerList players);
+
+    /**
+     * Chooses the card to guess when a guard is played.
+     *
+     * @param user
+     *          the player of the guard
+     * @param opponent
+     *          the targeted player
+     * @param players
+     *          the list of players
+     *
+     * @return the guessed card, never a guard
+     */
+    Card chooseGuess(Player user, Player opponent, PlayerList players);
+
+}
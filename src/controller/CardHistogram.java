@@ -0,0 +1,84 @@
+package controller;
+
+import model.Card;
+
+/**
+ * Counts the cards laid down in the used piles of every player at the table.
+ * Each UsedPile of a PlayerList updates the same histogram as cards are added and cleared,
+ * so the number of copies of a card not yet seen is known without walking every pile.
+ */
+public class CardHistogram {
+
+    /**
+     * The number of copies of each card, indexed by ordinal.
+     */
+    private int[] counts;
+    /**
+     * The total number of cards counted.
+     */
+    private int total;
+
+    /**
+     * Public constructor for a CardHistogram object.
+     */
+    public CardHistogram() {
+        this.counts = new int[Card.values().length];
+    }
+
+    /**
+     * Counts one more copy of a card.
+     *
+     * @param card
+     *          the card to count
+     */
+    void add(Card card) {
+        counts[card.ordinal()]++;
+        total++;
+    }
+
+    /**
+     * Counts one copy of a card less.
+     *
+     * @param card
+     *          the card to remove
+     */
+    void remove(Card card) {
+        counts[card.ordinal()]--;
+        total--;
+    }
+
+    /**
+     * Gets the number of copies of a card laid down.
+     *
+     * @param card
+     *          the card
+     *
+     * @return the number of copies counted
+     */
+    public int count(Card card) {
+        return counts[card.ordinal()];
+    }
+
+    /**
+     * Gets the number of copies of a card that have not been laid down.
+     * These copies are either in the deck or in a player's hand.
+     *
+     * @param card
+     *          the card
+     *
+     * @return the number of unseen copies
+     */
+    public int unseen(Card card) {
+        return card.copies() - counts[card.ordinal()];
+    }
+
+    /**
+     * Gets the total number of cards laid down.
+     *
+     * @return the number of cards counted
+     */
+    public int total() {
+        return this.total;
+    }
+
+}
@@ -3,8 +3,6 @@ package controller;
 import model.Card;
 import model.Deck;
 
-import java.util.Scanner;
-
 /**
  * The main game class. Contains methods for running the game.
  */
@@ -18,98 +16,108 @@ public class Game extends GameActions {
      * The deck of cards.
      */
     private Deck deck;
-    /**
-     * The input stream.
-     */
-    private Scanner in;
 
     /**
      * Public constructor for a Game object.
-     * @param in
-     *          the input stream
+     * Decisions are made by the agent of each player and events are sent to the listener.
+     * @param players
+     *          the list of players
+     * @param deck
+     *          the deck of cards
+     * @param listener
+     *          the listener notified of game events, null for none
      */
-    public Game(Scanner in) {
-        this.players = new PlayerList();
-        this.deck = new Deck();
-        this.in = in;
+    public Game(PlayerList players, Deck deck, GameListener listener) {
+        this.players = players;
+        this.deck = deck;
+        this.listener = listener == null ? GameListener.NONE : listener;
     }
 
     /**
-     * Sets up the players that make up the player list.
+     * The main game loop.
      */
-    public void setPlayers() {
-        System.out.print("Enter player name (empty when done): ");
-        String name = in.nextLine();
-
-        while (!name.isEmpty()) {
-            if (!this.players.addPlayer(name)) {
-                System.out.println("Player is already in the game");
-            }
-            System.out.print("Enter player name (empty when done): ");
-            name = in.nextLine();
+    public void start() {
+        while (players.getGameWinner() == null) {
+            playRound();
         }
+        listener.gameWon(players.getGameWinner());
     }
 
     /**
-     * The main game loop.
+     * Plays a single round and awards its blocks.
+     *
+     * @return the round winner
      */
-    public void start() {
-        while (players.getGameWinner() == null) {
-            players.reset();
-            setDeck();
-            players.dealCards(deck);
-            while (!players.checkForRoundWinner() && deck.hasMoreCards()) {
-                Player turn = players.getCurrentPlayer();
-
-                if (turn.hand().hasCards()) {
-                    players.printUsedPiles();
-                    System.out.println("\n" + turn.getName() + "'s turn:");
-                    if (turn.isProtected()) {
-                        turn.switchProtection();
-                    }
-                    turn.hand().add(deck.dealCard());
-
-                    int royaltyPos = turn.hand().royaltyPos();
-                    if (royaltyPos != -1) {
-                        if (royaltyPos == 0 && turn.hand().peek(1).value() == 7) {
-                            playCard(turn.hand().remove(1), turn);
-                        } else if (royaltyPos == 1 && turn.hand().peek(0).value() == 7) {
-                            playCard(turn.hand().remove(0), turn);
-                        } else {
-                            playCard(getCard(turn), turn);
-                        }
+    public Player playRound() {
+        players.reset();
+        setDeck();
+        players.dealCards(deck);
+        listener.roundStarted(players, deck);
+        while (!players.checkForRoundWinner() && deck.hasMoreCards()) {
+            Player turn = players.getCurrentPlayer();
+
+            if (turn.hand().hasCards()) {
+                listener.turnStarted(turn, players);
+                if (turn.isProtected()) {
+                    turn.switchProtection();
+                }
+                Card drawn = deck.dealCard();
+                turn.hand().add(drawn);
+                listener.cardDrawn(turn, drawn);
+
+                int royaltyPos = turn.hand().royaltyPos();
+                if (royaltyPos != -1) {
+                    if (royaltyPos == 0 && turn.hand().peek(1).value() == 7) {
+                        playCard(turn.hand().remove(1), turn);
+                    } else if (royaltyPos == 1 && turn.hand().peek(0).value() == 7) {
+                        playCard(turn.hand().remove(0), turn);
                     } else {
                         playCard(getCard(turn), turn);
                     }
+                } else {
+                    playCard(getCard(turn), turn);
                 }
             }
+        }
 
-            Player winner;
-            if (players.checkForRoundWinner() && players.getRoundWinner() != null) {
-                winner = players.getRoundWinner();
-            } else {
-                winner = players.compareUsedPiles();
-                winner.addBlock();
-            }
+        Player winner;
+        if (players.checkForRoundWinner() && players.getRoundWinner() != null) {
+            winner = players.getRoundWinner();
+        } else {
+            winner = players.compareUsedPiles();
             winner.addBlock();
-            System.out.println(winner.getName() + " has won this round!");
-            players.print();
         }
-        Player gameWinner = players.getGameWinner();
-        System.out.println(gameWinner + " has won the game and the heart of the princess!");
+        winner.addBlock();
+        listener.roundWon(winner, players);
+        return winner;
+    }
 
+    /**
+     * Gets the list of players in the game.
+     *
+     * @return this.players
+     */
+    public PlayerList getPlayers() {
+        return this.players;
     }
 
     /**
-     * Builds a new full deck and shuffles it.
+     * Builds a new full deck and shuffles it. The shuffle is only timed when someone is listening.
      */
     private void setDeck() {
         this.deck.buildDeck();
-        this.deck.shuffleDeck();
+        if (listener == GameListener.NONE) {
+            this.deck.shuffleDeck();
+        } else {
+            long start = System.nanoTime();
+            this.deck.shuffleDeck();
+            listener.deckShuffled(deck, System.nanoTime() - start);
+        }
     }
 
     /**
      * Determines the card used by the player and performs the card's action.
+     * A card that needs a target has no effect when every opponent is out or protected.
      * @param card
      *          the played card
      * @param user
@@ -118,12 +126,23 @@ public class Game extends GameActions {
     private void playCard(Card card, Player user) {
         int value = card.value();
         user.used().add(card);
-        if (value < 4 || value == 5 || value == 6) {
-            Player opponent = getOpponent(in, players, user);
+        if (card.isTargeted()) {
+            Player opponent = null;
+            Card guess = null;
+            if (players.hasTarget(user)) {
+                opponent = getOpponent(players, user, card);
+                if (value == 1) {
+                    guess = getGuess(players, user, opponent);
+                }
+            }
+            listener.cardPlayed(user, card, opponent, guess);
+            if (opponent == null) {
+                return;
+            }
             if (value == 1) {
-                useGuard(in, opponent);
+                useGuard(user, opponent, guess);
             } else if (value == 2) {
-                usePriest(opponent);
+                usePriest(user, opponent);
             } else if (value == 3) {
                 useBaron(user, opponent);
             } else if (value == 5) {
@@ -132,6 +151,7 @@ public class Game extends GameActions {
                 useKing(user, opponent);
             }
         } else {
+            listener.cardPlayed(user, card, null, null);
             if (value == 4) {
                 useHandmaiden(user);
             } else if (value == 8) {
@@ -149,17 +169,10 @@ public class Game extends GameActions {
      * @return the chosen card
      */
     private Card getCard(Player user) {
-        user.hand().print();
-        System.out.println();
-        System.out.print("Which card would you like to play (0 for first, 1 for second): ");
-        String cardPosition = in.nextLine();
-        while (!cardPosition.equals("0") && !cardPosition.equals("1")) {
-            System.out.println("Please enter a valid card position");
-            System.out.print("Which card would you like to play (0 for first, 1 for second): ");
-            cardPosition = in.nextLine();
+        int idx = user.agent().chooseCard(user, players, deck);
+        if (idx != 0 && idx != 1) {
+            throw new IllegalStateException(user.getName() + " chose an invalid card position");
         }
-
-        int idx = Integer.parseInt(cardPosition);
         return user.hand().remove(idx);
     }
 
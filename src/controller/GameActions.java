@@ -3,51 +3,46 @@ package controller;
 import model.Card;
 import model.Deck;
 
-import java.util.*;
-
 /**
  * The possible player actions to be taken during the game.
  */
 abstract class GameActions {
 
+    /**
+     * The listener notified of game events.
+     */
+    GameListener listener = GameListener.NONE;
+
     /**
      * Allows the user to guess a card that a player's hand contains (excluding another guard).
      * If the user is correct, the opponent loses the round and must lay down their card.
      * If the user is incorrect, the opponent is not affected.
-     * @param in
-     *          the input stream
+     * @param user
+     *          the player of the guard
      * @param opponent
      *          the targeted player
+     * @param guess
+     *          the guessed card
      */
-    void useGuard(Scanner in, Player opponent) {
-        ArrayList<String> cardNames = new ArrayList<>(Arrays.asList(Card.CARD_NAMES));
-
-        System.out.print("Which card would you like to guess: ");
-        String cardName = in.nextLine();
-
-        while (!cardNames.contains(cardName.toLowerCase()) || cardName.equalsIgnoreCase("guard")) {
-            System.out.println("Invalid card name");
-            System.out.print("Which card would you like to guess: ");
-            cardName = in.nextLine();
-        }
-
+    void useGuard(Player user, Player opponent, Card guess) {
         Card opponentCard = opponent.hand().peek(0);
-        if (opponentCard.getName().equalsIgnoreCase(cardName)) {
-            System.out.println("You have guessed correctly!");
+        boolean correct = opponentCard == guess;
+        listener.guardGuessed(user, opponent, guess, correct);
+        if (correct) {
             opponent.lose();
-        } else {
-            System.out.println("You have guessed incorrectly");
         }
     }
 
     /**
      * Allows the user to peek at the card of an opposing player.
+     * @param user
+     *          the player of the priest
      * @param opponent
      *          the targeted player
      */
-    void usePriest(Player opponent) {
+    void usePriest(Player user, Player opponent) {
         Card opponentCard = opponent.hand().peek(0);
-        System.out.println(opponent.getName() + " shows you a " + opponentCard);
+        listener.priestRevealed(user, opponent, opponentCard);
     }
 
     /**
@@ -65,22 +60,18 @@ abstract class GameActions {
         Card opponentCard = opponent.hand().peek(0);
 
         int cardComparison = Integer.compare(userCard.value(), opponentCard.value());
+        Player loser;
         if (cardComparison > 0) {
-            System.out.println("You have won the comparison!");
-            opponent.lose();
+            loser = opponent;
         } else if (cardComparison < 0) {
-            System.out.println("You have lost the comparison");
-            user.lose();
+            loser = user;
+        } else if (opponent.used().value() > user.used().value()) {
+            loser = user;
         } else {
-            System.out.println("You have the same card!");
-            if (opponent.used().value() > user.used().value()) {
-                System.out.println("You have lost the used pile comparison");
-                user.lose();
-            } else {
-                System.out.println("You have won the used pile comparison");
-                opponent.lose();
-            }
+            loser = opponent;
         }
+        listener.baronCompared(user, opponent, loser, cardComparison == 0);
+        loser.lose();
     }
 
     /**
@@ -89,7 +80,6 @@ abstract class GameActions {
      *          the current player
      */
     void useHandmaiden(Player user) {
-        System.out.println("You are now protected until your next turn");
         user.switchProtection();
     }
 
@@ -101,10 +91,14 @@ abstract class GameActions {
      *          the deck of cards
      */
     void usePrince(Player opponent, Deck d) {
+        Card discarded = opponent.hand().peek(0);
         opponent.lose();
+        Card drawn = null;
         if (d.hasMoreCards()) {
-            opponent.hand().add(d.dealCard());
+            drawn = d.dealCard();
+            opponent.hand().add(drawn);
         }
+        listener.princeDiscarded(opponent, discarded, drawn);
     }
 
     /**
@@ -133,34 +127,38 @@ abstract class GameActions {
 
     /**
      * Useful method for obtaining a chosen target from the player list.
-     * @param in
-     *          the input stream
      * @param playerList
      *          the list of players
      * @param user
      *          the player choosing an opponent
+     * @param card
+     *          the played card
      * @return the chosen target player
      */
-    Player getOpponent(Scanner in, PlayerList playerList, Player user) {
-        Player opponent = null;
-        boolean validTarget = false;
-        while (!validTarget) {
-            System.out.print("Who would you like to target: ");
-            String opponentName = in.nextLine();
-            opponent = playerList.getPlayer(opponentName);
-            if (opponent == null) {
-                System.out.println("This player is not in the game");
-            } else if (opponent.isProtected()) {
-                System.out.println("This player is protected by a handmaiden");
-            } else if (opponent.getName().equals(user.getName())) {
-                System.out.println("You cannot target yourself");
-            } else if (!opponent.hand().hasCards()) {
-                System.out.println("This player is out of cards");
-            } else {
-                validTarget = true;
-            }
+    Player getOpponent(PlayerList playerList, Player user, Card card) {
+        Player opponent = user.agent().chooseOpponent(user, card, playerList);
+        if (!playerList.isValidTarget(user, opponent)) {
+            throw new IllegalStateException(user.getName() + " chose an invalid target");
         }
         return opponent;
     }
 
+    /**
+     * Useful method for obtaining the card guessed by the player of a guard.
+     * @param playerList
+     *          the list of players
+     * @param user
+     *          the player of the guard
+     * @param opponent
+     *          the targeted player
+     * @return the guessed card
+     */
+    Card getGuess(PlayerList playerList, Player user, Player opponent) {
+        Card guess = user.agent().chooseGuess(user, opponent, playerList);
+        if (guess == null || guess == Card.GUARD) {
+            throw new IllegalStateException(user.getName() + " chose an invalid guess");
+        }
+        return guess;
+    }
+
 }
@@ -0,0 +1,141 @@
+package controller;
+
+import model.Card;
+import model.Deck;
+
+/**
+ * Receives the events of a game as they happen.
+ * All methods do nothing by default, so a listener only overrides the events it needs.
+ */
+public interface GameListener {
+
+    /**
+     * A listener that ignores every event.
+     */
+    GameListener NONE = new GameListener() { };
+
+    /**
+     * Called when the deck has been shuffled for a new round, before any card is dealt.
+     *
+     * @param deck
+     *          the shuffled deck
+     * @param nanos
+     *          the time the shuffle took, in nanoseconds
+     */
+    default void deckShuffled(Deck deck, long nanos) { }
+
+    /**
+     * Called after the deck has been shuffled and a card dealt to each player.
+     *
+     * @param players
+     *          the list of players
+     * @param deck
+     *          the shuffled deck, the dealt cards still readable through cardAt
+     */
+    default void roundStarted(PlayerList players, Deck deck) { }
+
+    /**
+     * Called at the start of a player's turn, before they draw.
+     *
+     * @param player
+     *          the current player
+     * @param players
+     *          the list of players
+     */
+    default void turnStarted(Player player, PlayerList players) { }
+
+    /**
+     * Called when the current player draws a card at the start of their turn.
+     *
+     * @param player
+     *          the current player
+     * @param card
+     *          the drawn card
+     */
+    default void cardDrawn(Player player, Card card) { }
+
+    /**
+     * Called when a card is played, before its action is performed.
+     *
+     * @param user
+     *          the player of the card
+     * @param card
+     *          the played card
+     * @param target
+     *          the targeted player, null if the card has no target or no player could be targeted
+     * @param guess
+     *          the guessed card if a guard was played at a target, null otherwise
+     */
+    default void cardPlayed(Player user, Card card, Player target, Card guess) { }
+
+    /**
+     * Called when a guard guess has been checked.
+     *
+     * @param user
+     *          the player of the guard
+     * @param opponent
+     *          the targeted player
+     * @param guess
+     *          the guessed card
+     * @param correct
+     *          true if the guess was correct, false if not
+     */
+    default void guardGuessed(Player user, Player opponent, Card guess, boolean correct) { }
+
+    /**
+     * Called when a priest reveals the card of an opponent to the user.
+     *
+     * @param user
+     *          the player of the priest
+     * @param opponent
+     *          the targeted player
+     * @param card
+     *          the card held by the opponent
+     */
+    default void priestRevealed(Player user, Player opponent, Card card) { }
+
+    /**
+     * Called when a baron comparison has been decided.
+     *
+     * @param user
+     *          the player of the baron
+     * @param opponent
+     *          the targeted player
+     * @param loser
+     *          the player who lost the comparison
+     * @param tied
+     *          true if both players held the same card and the used piles decided
+     */
+    default void baronCompared(Player user, Player opponent, Player loser, boolean tied) { }
+
+    /**
+     * Called when a prince makes an opponent lay down their card.
+     *
+     * @param opponent
+     *          the targeted player
+     * @param discarded
+     *          the card laid down
+     * @param drawn
+     *          the card drawn in its place, null if the deck was empty
+     */
+    default void princeDiscarded(Player opponent, Card discarded, Card drawn) { }
+
+    /**
+     * Called when a round has been won.
+     *
+     * @param winner
+     *          the round winner
+     * @param players
+     *          the list of players
+     */
+    default void roundWon(Player winner, PlayerList players) { }
+
+    /**
+     * Called when the game has been won.
+     *
+     * @param winner
+     *          the game winner
+     */
+    default void gameWon(Player winner) { }
+
+}
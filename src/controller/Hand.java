@@ -1,17 +1,47 @@
 package controller;
 
 import model.Card;
+import model.Zobrist;
 
+import java.io.PrintWriter;
 import java.util.ArrayList;
 
 public class Hand {
 
     private ArrayList<Card> hand;
 
+    /**
+     * The list whose live-player count follows this hand, null if there is none.
+     */
+    private PlayerList table;
+    /**
+     * The seat holding the hand, which picks its Zobrist keys.
+     */
+    private int seat;
+    /**
+     * The Zobrist hash of the cards held.
+     */
+    private long hash;
+
     public Hand() {
         this.hand  = new ArrayList<>();
     }
 
+    /**
+     * Constructor for a hand that tells its list when it gains its first or loses its last card,
+     * and passes every change of its hash on to the list.
+     *
+     * @param table
+     *          the list keeping the live-player count
+     * @param seat
+     *          the seat holding the hand
+     */
+    Hand(PlayerList table, int seat) {
+        this();
+        this.table = table;
+        this.seat = seat;
+    }
+
     /**
      * Peeks the card held by the player.
      *
@@ -30,7 +60,12 @@ public class Hand {
      *          the card to add
      */
     public void add(Card card) {
+        toggle(Zobrist.hand(this.seat, card, count(card)));
         this.hand.add(card);
+        if (this.table != null && this.hand.size() == 1) {
+            this.table.playerIn();
+            this.table.tableChanged(Zobrist.inRound(this.seat));
+        }
     }
 
     /**
@@ -41,7 +76,15 @@ public class Hand {
      *
      * @return the card at the given index
      */
-    public Card remove(int idx) { return this.hand.remove(idx); }
+    public Card remove(int idx) {
+        Card card = this.hand.remove(idx);
+        toggle(Zobrist.hand(this.seat, card, count(card)));
+        if (this.table != null && this.hand.isEmpty()) {
+            this.table.playerOut();
+            this.table.tableChanged(Zobrist.inRound(this.seat));
+        }
+        return card;
+    }
 
     /**
      * Finds the position of a royal card in the hand.
@@ -66,19 +109,83 @@ public class Hand {
         return !this.hand.isEmpty();
     }
 
+    /**
+     * Gets the number of cards held by the player.
+     *
+     * @return the number of cards
+     */
+    public int size() {
+        return this.hand.size();
+    }
+
     /**
      * Clears the player hand.
      */
     public void clear() {
+        if (this.table != null && !this.hand.isEmpty()) {
+            this.table.playerOut();
+            this.table.tableChanged(Zobrist.inRound(this.seat));
+        }
+        toggle(this.hash);
         this.hand.clear();
     }
 
+    /**
+     * Gets the Zobrist hash of the cards held. It does not depend on their order.
+     *
+     * @return the hash of the hand
+     */
+    public long hash() {
+        return this.hash;
+    }
+
+    /**
+     * Counts the copies of a card held.
+     *
+     * @param card
+     *          the card
+     *
+     * @return the number of copies
+     */
+    private int count(Card card) {
+        int n = 0;
+        for (int i = 0; i < this.hand.size(); i++) {
+            n += this.hand.get(i) == card ? 1 : 0;
+        }
+        return n;
+    }
+
+    /**
+     * Adds or removes a key from the hash of the hand and of its list.
+     *
+     * @param key
+     *          the key
+     */
+    private void toggle(long key) {
+        this.hash ^= key;
+        if (this.table != null) {
+            this.table.handChanged(key);
+        }
+    }
+
     /**
      * Prints the cards making up the current player's hand.
      */
     public void print() {
+        PrintWriter out = new PrintWriter(System.out);
+        print(out);
+        out.flush();
+    }
+
+    /**
+     * Prints the cards making up the current player's hand.
+     *
+     * @param out
+     *          the writer to print to
+     */
+    public void print(PrintWriter out) {
         for (Card c : this.hand) {
-            System.out.println(c);
+            out.println(c);
         }
     }
 
@@ -0,0 +1,103 @@
+package controller;
+
+import model.Card;
+import model.Deck;
+
+/**
+ * Passes every event on to several listeners, in the order they were given.
+ */
+public class MulticastListener implements GameListener {
+
+    /**
+     * The listeners receiving the events.
+     */
+    private final GameListener[] listeners;
+
+    /**
+     * Public constructor for a MulticastListener object.
+     *
+     * @param listeners
+     *          the listeners receiving the events
+     */
+    public MulticastListener(GameListener... listeners) {
+        this.listeners = listeners.clone();
+    }
+
+    @Override
+    public void deckShuffled(Deck deck, long nanos) {
+        for (GameListener l : listeners) {
+            l.deckShuffled(deck, nanos);
+        }
+    }
+
+    @Override
+    public void roundStarted(PlayerList players, Deck deck) {
+        for (GameListener l : listeners) {
+            l.roundStarted(players, deck);
+        }
+    }
+
+    @Override
+    public void turnStarted(Player player, PlayerList players) {
+        for (GameListener l : listeners) {
+            l.turnStarted(player, players);
+        }
+    }
+
+    @Override
+    public void cardDrawn(Player player, Card card) {
+        for (GameListener l : listeners) {
+            l.cardDrawn(player, card);
+        }
+    }
+
+    @Override
+    public void cardPlayed(Player user, Card card, Player target, Card guess) {
+        for (GameListener l : listeners) {
+            l.cardPlayed(user, card, target, guess);
+        }
+    }
+
+    @Override
+    public void guardGuessed(Player user, Player opponent, Card guess, boolean correct) {
+        for (GameListener l : listeners) {
+            l.guardGuessed(user, opponent, guess, correct);
+        }
+    }
+
+    @Override
+    public void priestRevealed(Player user, Player opponent, Card card) {
+        for (GameListener l : listeners) {
+            l.priestRevealed(user, opponent, card);
+        }
+    }
+
+    @Override
+    public void baronCompared(Player user, Player opponent, Player loser, boolean tied) {
+        for (GameListener l : listeners) {
+            l.baronCompared(user, opponent, loser, tied);
+        }
+    }
+
+    @Override
+    public void princeDiscarded(Player opponent, Card discarded, Card drawn) {
+        for (GameListener l : listeners) {
+            l.princeDiscarded(opponent, discarded, drawn);
+        }
+    }
+
+    @Override
+    public void roundWon(Player winner, PlayerList players) {
+        for (GameListener l : listeners) {
+            l.roundWon(winner, players);
+        }
+    }
+
+    @Override
+    public void gameWon(Player winner) {
+        for (GameListener l : listeners) {
+            l.gameWon(winner);
+        }
+    }
+
+}
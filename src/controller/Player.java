@@ -1,8 +1,6 @@
 package controller;
 
-import model.Card;
-
-import java.util.ArrayList;
+import model.Zobrist;
 
 /**
  * Class representing a Player of Love Letter.
@@ -13,6 +11,10 @@ public class Player {
      * The name of the player.
      */
     private String name;
+    /**
+     * The agent making decisions for the player.
+     */
+    private Agent agent;
     /**
      * Hand of cards the player possesses.
      */
@@ -29,21 +31,57 @@ public class Player {
      * The number of blocks the player has won.
      */
     private int blockCount;
+    /**
+     * The seat of the player in their PlayerList.
+     */
+    private int seat;
+    /**
+     * The list the player belongs to, null if there is none.
+     */
+    private PlayerList table;
 
     /**
      * Public constructor for Player object.
      *
      * @param name
      *          the player name
+     * @param agent
+     *          the agent making decisions for the player
      */
-    public Player(String name) {
+    public Player(String name, Agent agent) {
         this.name = name;
+        this.agent = agent;
         this.hand = new Hand();
         this.used = new UsedPile();
         this.isProtected = false;
         this.blockCount = 0;
     }
 
+    /**
+     * Constructor for a Player seated in a PlayerList.
+     * The hand keeps the list's live-player count and the used pile its card histogram up to date,
+     * and the hand, used pile and protection keep the list's hashes up to date.
+     *
+     * @param name
+     *          the player name
+     * @param agent
+     *          the agent making decisions for the player
+     * @param table
+     *          the list the player belongs to
+     * @param seat
+     *          the seat of the player in the list
+     */
+    Player(String name, Agent agent, PlayerList table, int seat) {
+        this.name = name;
+        this.agent = agent;
+        this.hand = new Hand(table, seat);
+        this.used = new UsedPile(table, seat);
+        this.isProtected = false;
+        this.blockCount = 0;
+        this.seat = seat;
+        this.table = table;
+    }
+
     /**
      * Adds one block to the players block count.
      */
@@ -64,6 +102,9 @@ public class Player {
      */
     public void switchProtection() {
         this.isProtected = !this.isProtected;
+        if (this.table != null) {
+            this.table.tableChanged(Zobrist.protection(this.seat));
+        }
     }
 
     /**
@@ -102,6 +143,24 @@ public class Player {
         return this.blockCount;
     }
 
+    /**
+     * Getter for the agent making decisions for the user.
+     *
+     * @return player's agent
+     */
+    public Agent agent() {
+        return this.agent;
+    }
+
+    /**
+     * Getter for the user's seat, the order in which they joined the PlayerList.
+     *
+     * @return player's seat
+     */
+    public int getSeat() {
+        return this.seat;
+    }
+
     /**
      * Getter for the user's name.
      *
@@ -1,72 +1,200 @@
 package controller;
 
+import model.Card;
 import model.Deck;
+import model.Move;
+import model.Zobrist;
 
-import java.util.LinkedList;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 /**
  * Class representing the collective list of players.
+ * Players sit in a fixed-capacity ring; a cursor points at the next player to take a turn,
+ * and the list is always walked in turn order starting from that player.
  */
 public class PlayerList{
 
     /**
-     * The list of players.
+     * The default largest number of players at the table.
      */
-    private LinkedList<Player> players;
+    public static final int DEFAULT_CAPACITY = 8;
+
+    /**
+     * The players, indexed by seat.
+     */
+    private Player[] players;
+    /**
+     * The number of players.
+     */
+    private int size;
+    /**
+     * The seat of the next player to take a turn.
+     */
+    private int cursor;
+    /**
+     * The players by case-folded name.
+     */
+    private Map<String, Player> byName;
+    /**
+     * The number of players who still have cards.
+     */
+    private int live;
+    /**
+     * The cards laid down in the used piles of all players.
+     */
+    private CardHistogram seen;
+    /**
+     * The Zobrist hash of what every player can see: the used piles, the protections, the seats still
+     * in the round and the cursor.
+     */
+    private long tableHash;
+    /**
+     * The Zobrist hash of the hands of all players.
+     */
+    private long handsHash;
 
     /**
      * Public constructor for a PlayerList object.
      */
     public PlayerList() {
-        this.players = new LinkedList<>();
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Public constructor for a PlayerList object seating at most the given number of players.
+     *
+     * @param capacity
+     *          the largest number of players
+     */
+    public PlayerList(int capacity) {
+        this.players = new Player[capacity];
+        this.byName = new HashMap<>();
+        this.seen = new CardHistogram();
+        this.tableHash = Zobrist.turn(0);
     }
 
     /**
      * Adds a new Player object with the given name to the PlayerList.
+     * The new player takes the next free seat.
      *
      * @param name
      *          the given player name
+     * @param agent
+     *          the agent making decisions for the player
      *
      * @return true if the player is not already in the list and can be added, false if not
      */
-    public boolean addPlayer(String name) {
-        for (Player p : players) {
-            if (p.getName().equalsIgnoreCase(name)) {
-                return false;
-            }
+    public boolean addPlayer(String name, Agent agent) {
+        String key = fold(name);
+        if (byName.containsKey(key) || isFull()) {
+            return false;
         }
-        players.addLast(new Player(name));
+        Player p = new Player(name, agent, this, size);
+        players[size++] = p;
+        byName.put(key, p);
         return true;
     }
 
     /**
-     * Gets the first player in the list and adds them to end of the list.
+     * Checks to see if every seat is taken.
+     *
+     * @return true if no more players can be added, false if not
+     */
+    public boolean isFull() {
+        return size == players.length;
+    }
+
+    /**
+     * Gets the number of players.
+     *
+     * @return the number of players
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Gets the player in the given seat.
+     *
+     * @param seat
+     *          the seat, in the order the players were added
+     *
+     * @return the player in that seat
+     */
+    public Player getSeat(int seat) {
+        return players[seat];
+    }
+
+    /**
+     * Gets the player at the cursor and moves the cursor to the next player.
      *
      * @return the first player in the list
      */
     public Player getCurrentPlayer() {
-        Player current = players.removeFirst();
-        players.addLast(current);
+        Player current = players[cursor];
+        int next = cursor + 1 == size ? 0 : cursor + 1;
+        tableHash ^= Zobrist.turn(cursor) ^ Zobrist.turn(next);
+        cursor = next;
         return current;
     }
 
+    /**
+     * Gets the player at the given position in turn order.
+     *
+     * @param idx
+     *          the position, 0 being the next player to take a turn
+     *
+     * @return the player at that position
+     */
+    private Player at(int idx) {
+        int seat = cursor + idx;
+        return players[seat >= size ? seat - size : seat];
+    }
+
     /**
      * Resets all players within the list.
      */
     public void reset() {
-        for (Player p : players) {
-            p.hand().clear();
-            p.used().clear();
+        for (int i = 0; i < size; i++) {
+            players[i].hand().clear();
+            players[i].used().clear();
         }
     }
 
+    /**
+     * Gets the histogram of the cards laid down in the used piles of all players.
+     *
+     * @return the shared histogram
+     */
+    public CardHistogram seen() {
+        return this.seen;
+    }
+
     /**
      * Prints the used pile of each Player in the list.
      */
     public void printUsedPiles() {
-        for (Player p : players) {
-            System.out.println("\n" + p.getName());
-            p.used().print();
+        PrintWriter out = new PrintWriter(System.out);
+        printUsedPiles(out);
+        out.flush();
+    }
+
+    /**
+     * Prints the used pile of each Player in the list.
+     *
+     * @param out
+     *          the writer to print to
+     */
+    public void printUsedPiles(PrintWriter out) {
+        for (int i = 0; i < size; i++) {
+            Player p = at(i);
+            out.println("\n" + p.getName());
+            p.used().print(out);
         }
     }
 
@@ -74,11 +202,23 @@ public class PlayerList{
      * Prints each Player in the list.
      */
     public void print() {
-        System.out.println();
-        for (Player p : players) {
-            System.out.println(p);
+        PrintWriter out = new PrintWriter(System.out);
+        print(out);
+        out.flush();
+    }
+
+    /**
+     * Prints each Player in the list.
+     *
+     * @param out
+     *          the writer to print to
+     */
+    public void print(PrintWriter out) {
+        out.println();
+        for (int i = 0; i < size; i++) {
+            out.println(at(i));
         }
-        System.out.println();
+        out.println();
     }
 
     /**
@@ -87,13 +227,80 @@ public class PlayerList{
      * @return true if there is a winner, false if not
      */
     public boolean checkForRoundWinner() {
-        int count = 0;
-        for (Player p : players) {
-            if (p.hand().hasCards()) {
-                count++;
-            }
-        }
-        return count == 1;
+        return live == 1;
+    }
+
+    /**
+     * Gets the number of players who still have cards.
+     *
+     * @return the number of players in the round
+     */
+    public int liveCount() {
+        return this.live;
+    }
+
+    /**
+     * Called by a hand that has just received its first card.
+     */
+    void playerIn() {
+        live++;
+    }
+
+    /**
+     * Called by a hand that has just lost its last card.
+     */
+    void playerOut() {
+        live--;
+    }
+
+    /**
+     * Called by a hand whose hash has changed.
+     *
+     * @param key
+     *          the keys added or removed
+     */
+    void handChanged(long key) {
+        handsHash ^= key;
+    }
+
+    /**
+     * Called by a used pile, hand or player whose public hash has changed.
+     *
+     * @param key
+     *          the keys added or removed
+     */
+    void tableChanged(long key) {
+        tableHash ^= key;
+    }
+
+    /**
+     * Gets the Zobrist hash of the position: every hand, used pile and protection, the cursor
+     * and the cards left in the deck, in order.
+     *
+     * @param deck
+     *          the deck of the round
+     *
+     * @return the hash of the position
+     */
+    public long hash(Deck deck) {
+        return tableHash ^ handsHash ^ deck.hash();
+    }
+
+    /**
+     * Gets the Zobrist hash of what one player can observe of the position: their own hand, every
+     * used pile and protection, the seats still in the round, the cursor and the number of cards
+     * left in the deck. Positions that
+     * differ only in cards the player cannot see hash the same.
+     *
+     * @param observer
+     *          the player observing
+     * @param deck
+     *          the deck of the round
+     *
+     * @return the hash of the player's view
+     */
+    public long observedHash(Player observer, Deck deck) {
+        return tableHash ^ observer.hand().hash() ^ Zobrist.deckSize(deck.size());
     }
 
     /**
@@ -102,7 +309,8 @@ public class PlayerList{
      * @return the round winner
      */
     public Player getRoundWinner() {
-        for (Player p : players) {
+        for (int i = 0; i < size; i++) {
+            Player p = at(i);
             if (p.hand().hasCards()) {
                 return p;
             }
@@ -116,8 +324,9 @@ public class PlayerList{
      * @return the game winner
      */
     public Player getGameWinner() {
-        for (Player p : players) {
-            if (p.getBlockCount() == 5) {
+        for (int i = 0; i < size; i++) {
+            Player p = at(i);
+            if (p.getBlockCount() >= 5) {
                 return p;
             }
         }
@@ -131,8 +340,8 @@ public class PlayerList{
      *          the deck of cards
      */
     public void dealCards(Deck deck) {
-        for (Player p : players) {
-            p.hand().add(deck.dealCard());
+        for (int i = 0; i < size; i++) {
+            at(i).hand().add(deck.dealCard());
         }
     }
 
@@ -145,12 +354,106 @@ public class PlayerList{
      * @return the player with the given name or null if there is no such player
      */
     public Player getPlayer(String name) {
-        for (Player p : players) {
-            if (p.getName().equalsIgnoreCase(name)) {
-                return p;
+        return byName.get(fold(name));
+    }
+
+    /**
+     * Checks to see if the user may target the given player.
+     * A valid target is another player in the game who still has cards and is not protected.
+     *
+     * @param user
+     *          the player choosing an opponent
+     * @param opponent
+     *          the possible target
+     *
+     * @return true if the opponent can be targeted, false if not
+     */
+    public boolean isValidTarget(Player user, Player opponent) {
+        return opponent != null && opponent != user && getPlayer(opponent.getName()) == opponent
+                && !opponent.isProtected() && opponent.hand().hasCards();
+    }
+
+    /**
+     * Checks to see if the user has at least one valid target.
+     *
+     * @param user
+     *          the player choosing an opponent
+     *
+     * @return true if there is a valid target, false if not
+     */
+    public boolean hasTarget(Player user) {
+        for (int i = 0; i < size; i++) {
+            Player p = at(i);
+            if (p != user && !p.isProtected() && p.hand().hasCards()) {
+                return true;
             }
         }
-        return null;
+        return false;
+    }
+
+    /**
+     * Gets every player the user may target.
+     *
+     * @param user
+     *          the player choosing an opponent
+     *
+     * @return the valid targets in turn order
+     */
+    public List<Player> getTargets(Player user) {
+        List<Player> targets = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Player p = at(i);
+            if (p != user && !p.isProtected() && p.hand().hasCards()) {
+                targets.add(p);
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Lists every legal move of a player holding two cards, as packed Moves with absolute target seats,
+     * without creating any objects. Protected players and players who are out cannot be targeted,
+     * a targeted card with no valid target is played without one, a guard may guess any card but
+     * a guard, and holding the Countess with the King or Prince forces the Countess.
+     *
+     * @param user
+     *          the player to move
+     * @param moves
+     *          receives the packed moves, at least Move.MAX_MOVES long
+     *
+     * @return the number of moves
+     */
+    public int legalMoves(Player user, int[] moves) {
+        Hand hand = user.hand();
+        int royalty = hand.royaltyPos();
+        boolean countess = royalty != -1 && hand.peek(1 - royalty) == Card.COUNTESS;
+        int n = 0;
+        for (int slot = 0; slot < 2; slot++) {
+            Card card = hand.peek(slot);
+            if (countess && card != Card.COUNTESS) {
+                continue;
+            }
+            int start = n;
+            if (card.isTargeted()) {
+                for (int seat = 0; seat < size; seat++) {
+                    Player p = players[seat];
+                    if (p == user || p.isProtected() || !p.hand().hasCards()) {
+                        continue;
+                    }
+                    if (card != Card.GUARD) {
+                        moves[n++] = Move.of(slot, seat, 0);
+                        continue;
+                    }
+                    for (int guess = Card.GUARD.value() + 1; guess <= Card.PRINCESS.value(); guess++) {
+                        moves[n++] = Move.of(slot, seat, guess);
+                    }
+                }
+            }
+            if (n == start) {
+                moves[n++] = Move.of(slot, Move.NO_TARGET, 0);
+            }
+        }
+        return n;
     }
 
     /**
@@ -159,8 +462,9 @@ public class PlayerList{
      * @return the player with the highest used pile value
      */
     public Player compareUsedPiles() {
-        Player winner = players.getFirst();
-        for (Player p : players) {
+        Player winner = at(0);
+        for (int i = 1; i < size; i++) {
+            Player p = at(i);
             if (p.used().value() > winner.used().value()) {
                 winner = p;
             }
@@ -168,4 +472,16 @@ public class PlayerList{
         return winner;
     }
 
+    /**
+     * Folds the case of a name, so that names differing only in case share an index entry.
+     *
+     * @param name
+     *          the player name
+     *
+     * @return the case-folded name
+     */
+    private static String fold(String name) {
+        return name.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+    }
+
 }
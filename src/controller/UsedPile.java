@@ -1,15 +1,72 @@
 package controller;
 
 import model.Card;
+import model.Zobrist;
 
+import java.io.PrintWriter;
 import java.util.ArrayList;
 
 public class UsedPile {
 
     private ArrayList<Card> used;
 
+    /**
+     * The running sum value of the cards in the pile.
+     */
+    private int value;
+
+    /**
+     * The number of copies of each card in the pile, indexed by ordinal.
+     */
+    private int[] counts;
+
+    /**
+     * The histogram shared by the used piles of every player at the table.
+     */
+    private CardHistogram seen;
+
+    /**
+     * The list whose hash follows this pile, null if there is none.
+     */
+    private PlayerList table;
+    /**
+     * The seat of the pile, which picks its Zobrist keys.
+     */
+    private int seat;
+    /**
+     * The Zobrist hash of the cards in the pile.
+     */
+    private long hash;
+
     public UsedPile() {
+        this(new CardHistogram());
+    }
+
+    /**
+     * Public constructor for a UsedPile counting its cards in a shared histogram.
+     *
+     * @param seen
+     *          the histogram shared by the used piles of every player at the table
+     */
+    public UsedPile(CardHistogram seen) {
         this.used = new ArrayList<>();
+        this.counts = new int[Card.values().length];
+        this.seen = seen;
+    }
+
+    /**
+     * Constructor for the used pile of a seat in a PlayerList, counting its cards in the list's
+     * histogram and passing every change of its hash on to the list.
+     *
+     * @param table
+     *          the list the pile belongs to
+     * @param seat
+     *          the seat of the pile
+     */
+    UsedPile(PlayerList table, int seat) {
+        this(table.seen());
+        this.table = table;
+        this.seat = seat;
     }
 
     /**
@@ -19,7 +76,11 @@ public class UsedPile {
      *          the card to add to the used pile
      */
     public void add(Card used) {
+        toggle(Zobrist.used(this.seat, used, this.counts[used.ordinal()]));
         this.used.add(used);
+        this.value += used.value();
+        this.counts[used.ordinal()]++;
+        this.seen.add(used);
     }
 
     /**
@@ -28,23 +89,71 @@ public class UsedPile {
      * @return the sum of the player's used pile
      */
     public int value() {
-        int value = 0;
-        for (Card c : this.used) {
-            value += c.value();
-        }
-        return value;
+        return this.value;
+    }
+
+    /**
+     * Gets the number of copies of a card in the player's used pile.
+     *
+     * @param card
+     *          the card
+     *
+     * @return the number of copies
+     */
+    public int count(Card card) {
+        return this.counts[card.ordinal()];
     }
 
     public void clear() {
+        for (Card c : this.used) {
+            this.counts[c.ordinal()]--;
+            this.seen.remove(c);
+        }
         this.used.clear();
+        this.value = 0;
+        toggle(this.hash);
+    }
+
+    /**
+     * Gets the Zobrist hash of the cards in the pile. It does not depend on their order.
+     *
+     * @return the hash of the pile
+     */
+    public long hash() {
+        return this.hash;
+    }
+
+    /**
+     * Adds or removes a key from the hash of the pile and of its list.
+     *
+     * @param key
+     *          the key
+     */
+    private void toggle(long key) {
+        this.hash ^= key;
+        if (this.table != null) {
+            this.table.tableChanged(key);
+        }
     }
 
     /**
      * Prints the used pile of the current player.
      */
     public void print() {
+        PrintWriter out = new PrintWriter(System.out);
+        print(out);
+        out.flush();
+    }
+
+    /**
+     * Prints the used pile of the current player.
+     *
+     * @param out
+     *          the writer to print to
+     */
+    public void print(PrintWriter out) {
         for (Card c : this.used) {
-            System.out.println(c);
+            out.println(c);
         }
     }
 
@@ -0,0 +1,260 @@
+package metrics;
+
+import controller.GameListener;
+import controller.Player;
+import controller.PlayerList;
+import model.Card;
+import model.Deck;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.Closeable;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and histograms of the engine at work, fed as a GameListener by any number of games
+ * at once and read over JMX or as a periodic text dump.
+ * Counters are LongAdders and histograms are striped, so parallel games do not contend on them.
+ * Decision latencies come from agents wrapped in a TimedAgent.
+ */
+public class EngineMetrics implements GameListener, EngineMetricsMXBean {
+
+    private static final Card[] CARDS = Card.values();
+
+    /**
+     * The System.nanoTime at which the metrics were created.
+     */
+    private final long created;
+    private final LongAdder games;
+    private final LongAdder rounds;
+    private final LongAdder turns;
+    /**
+     * The number of plays of each card, by ordinal.
+     */
+    private final LongAdder[] cardPlays;
+    /**
+     * The number of turns of each round.
+     */
+    private final Histogram roundLength;
+    /**
+     * The decision times of timed agents, in nanoseconds.
+     */
+    private final Histogram decisionLatency;
+    /**
+     * The shuffle times, in nanoseconds.
+     */
+    private final Histogram shuffleTime;
+    /**
+     * The number of turns of the round being played by each game thread.
+     */
+    private final ThreadLocal<int[]> roundTurns;
+
+    /**
+     * Public constructor for an EngineMetrics object.
+     */
+    public EngineMetrics() {
+        this.created = System.nanoTime();
+        this.games = new LongAdder();
+        this.rounds = new LongAdder();
+        this.turns = new LongAdder();
+        this.cardPlays = new LongAdder[CARDS.length];
+        for (int i = 0; i < CARDS.length; i++) {
+            cardPlays[i] = new LongAdder();
+        }
+        this.roundLength = new Histogram();
+        this.decisionLatency = new Histogram();
+        this.shuffleTime = new Histogram();
+        this.roundTurns = ThreadLocal.withInitial(() -> new int[1]);
+    }
+
+    @Override
+    public void deckShuffled(Deck deck, long nanos) {
+        shuffleTime.record(nanos);
+    }
+
+    @Override
+    public void roundStarted(PlayerList players, Deck deck) {
+        roundTurns.get()[0] = 0;
+    }
+
+    @Override
+    public void turnStarted(Player player, PlayerList players) {
+        turns.increment();
+        roundTurns.get()[0]++;
+    }
+
+    @Override
+    public void cardPlayed(Player user, Card card, Player target, Card guess) {
+        cardPlays[card.ordinal()].increment();
+    }
+
+    @Override
+    public void roundWon(Player winner, PlayerList players) {
+        rounds.increment();
+        roundLength.record(roundTurns.get()[0]);
+    }
+
+    @Override
+    public void gameWon(Player winner) {
+        games.increment();
+    }
+
+    /**
+     * Records the time an agent took to make a decision.
+     *
+     * @param nanos
+     *          the decision time, in nanoseconds
+     */
+    public void recordDecision(long nanos) {
+        decisionLatency.record(nanos);
+    }
+
+    @Override
+    public long getGames() {
+        return games.sum();
+    }
+
+    @Override
+    public long getRounds() {
+        return rounds.sum();
+    }
+
+    @Override
+    public long getTurns() {
+        return turns.sum();
+    }
+
+    @Override
+    public double getRoundsPerSecond() {
+        return rounds.sum() / seconds();
+    }
+
+    @Override
+    public double getTurnsPerSecond() {
+        return turns.sum() / seconds();
+    }
+
+    @Override
+    public long[] getCardPlays() {
+        long[] plays = new long[CARDS.length];
+        for (int i = 0; i < plays.length; i++) {
+            plays[i] = cardPlays[i].sum();
+        }
+        return plays;
+    }
+
+    @Override
+    public double getRoundLengthMean() {
+        return roundLength.snapshot().mean();
+    }
+
+    @Override
+    public double getDecisionLatencyMean() {
+        return decisionLatency.snapshot().mean() / 1e3;
+    }
+
+    @Override
+    public double getDecisionLatencyP99() {
+        return decisionLatency.snapshot().percentile(0.99) / 1e3;
+    }
+
+    @Override
+    public double getDecisionLatencyMax() {
+        return decisionLatency.snapshot().max() / 1e3;
+    }
+
+    @Override
+    public double getShuffleTimeMean() {
+        return shuffleTime.snapshot().mean() / 1e3;
+    }
+
+    @Override
+    public double getShuffleTimeP99() {
+        return shuffleTime.snapshot().percentile(0.99) / 1e3;
+    }
+
+    private double seconds() {
+        return Math.max(System.nanoTime() - created, 1) / 1e9;
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server, as loveletter:type=EngineMetrics,name=name.
+     *
+     * @param name
+     *          the name of the metrics
+     *
+     * @return the name the metrics were registered under
+     */
+    public ObjectName register(String name) {
+        try {
+            ObjectName objectName = new ObjectName("loveletter:type=EngineMetrics,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register the metrics", e);
+        }
+    }
+
+    /**
+     * Describes the metrics as text.
+     *
+     * @return a report of every metric
+     */
+    @Override
+    public String toString() {
+        Histogram.Snapshot decisions = decisionLatency.snapshot();
+        Histogram.Snapshot shuffles = shuffleTime.snapshot();
+        Histogram.Snapshot lengths = roundLength.snapshot();
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("games %d, rounds %d (%.0f/s), turns %d (%.0f/s)%n",
+                getGames(), getRounds(), getRoundsPerSecond(), getTurns(), getTurnsPerSecond()));
+        sb.append(String.format("round length mean %.2f, p99 %d turns%n", lengths.mean(), lengths.percentile(0.99)));
+        sb.append(String.format("decision latency mean %.1f us, p50 %.1f us, p99 %.1f us, max %.1f us (%d decisions)%n",
+                decisions.mean() / 1e3, decisions.percentile(0.5) / 1e3, decisions.percentile(0.99) / 1e3,
+                decisions.max() / 1e3, decisions.count()));
+        sb.append(String.format("shuffle time mean %.2f us, p99 %.2f us%n",
+                shuffles.mean() / 1e3, shuffles.percentile(0.99) / 1e3));
+        sb.append("card plays");
+        for (int i = 0; i < CARDS.length; i++) {
+            sb.append(' ').append(CARDS[i].getName()).append(' ').append(cardPlays[i].sum());
+        }
+        return sb.append(System.lineSeparator()).toString();
+    }
+
+    /**
+     * Prints the metrics periodically from a daemon thread, along with the rates over the last period.
+     *
+     * @param out
+     *          the stream to print to
+     * @param periodMillis
+     *          the time between dumps, in milliseconds
+     *
+     * @return closing it stops the dumps
+     */
+    public Closeable startDump(PrintStream out, long periodMillis) {
+        ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-dump");
+            t.setDaemon(true);
+            return t;
+        });
+        long[] last = {System.nanoTime(), getRounds(), getTurns()};
+        timer.scheduleAtFixedRate(() -> {
+            long now = System.nanoTime();
+            long r = getRounds();
+            long t = getTurns();
+            double seconds = (now - last[0]) / 1e9;
+            out.printf("last %.1f s: %.0f rounds/s, %.0f turns/s%n%s",
+                    seconds, (r - last[1]) / seconds, (t - last[2]) / seconds, this);
+            last[0] = now;
+            last[1] = r;
+            last[2] = t;
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+        return timer::shutdownNow;
+    }
+
+}
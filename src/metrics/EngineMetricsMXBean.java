@@ -0,0 +1,92 @@
+package metrics;
+
+/**
+ * The attributes an EngineMetrics exposes over JMX. Times are in microseconds.
+ */
+public interface EngineMetricsMXBean {
+
+    /**
+     * Gets the number of games finished.
+     *
+     * @return the number of games
+     */
+    long getGames();
+
+    /**
+     * Gets the number of rounds finished.
+     *
+     * @return the number of rounds
+     */
+    long getRounds();
+
+    /**
+     * Gets the number of turns started.
+     *
+     * @return the number of turns
+     */
+    long getTurns();
+
+    /**
+     * Gets the mean number of rounds finished per second since the metrics were created.
+     *
+     * @return the round rate
+     */
+    double getRoundsPerSecond();
+
+    /**
+     * Gets the mean number of turns started per second since the metrics were created.
+     *
+     * @return the turn rate
+     */
+    double getTurnsPerSecond();
+
+    /**
+     * Gets the number of times each card was played.
+     *
+     * @return the play counts, indexed by card ordinal
+     */
+    long[] getCardPlays();
+
+    /**
+     * Gets the mean number of turns in a round.
+     *
+     * @return the mean round length
+     */
+    double getRoundLengthMean();
+
+    /**
+     * Gets the mean time an agent took to make a decision.
+     *
+     * @return the mean decision latency
+     */
+    double getDecisionLatencyMean();
+
+    /**
+     * Gets the 99th percentile of the time an agent took to make a decision.
+     *
+     * @return the decision latency percentile
+     */
+    double getDecisionLatencyP99();
+
+    /**
+     * Gets the longest time an agent took to make a decision.
+     *
+     * @return the longest decision latency
+     */
+    double getDecisionLatencyMax();
+
+    /**
+     * Gets the mean time a shuffle took.
+     *
+     * @return the mean shuffle time
+     */
+    double getShuffleTimeMean();
+
+    /**
+     * Gets the 99th percentile of the time a shuffle took.
+     *
+     * @return the shuffle time percentile
+     */
+    double getShuffleTimeP99();
+
+}
@@ -0,0 +1,189 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of non-negative values with log-linear buckets: every power of two is split into
+ * four buckets, so a percentile is off by at most a quarter of its value.
+ * Recording goes to one of several stripes chosen by the recording thread, so threads running
+ * games in parallel seldom touch the same memory. Reading sums the stripes.
+ */
+public class Histogram {
+
+    /**
+     * Bits of each value below its leading one that pick its bucket.
+     */
+    private static final int SUB_BITS = 2;
+    /**
+     * The number of buckets.
+     */
+    private static final int BUCKETS = (64 - SUB_BITS) << SUB_BITS;
+    /**
+     * Index of the sum of the values in a stripe.
+     */
+    private static final int SUM = BUCKETS;
+    /**
+     * Index of the largest value in a stripe.
+     */
+    private static final int MAX = BUCKETS + 1;
+
+    /**
+     * The stripes, each holding the bucket counts, the sum and the largest value.
+     */
+    private final AtomicLongArray[] stripes;
+    /**
+     * The stripe index mask.
+     */
+    private final int mask;
+
+    /**
+     * Public constructor for a Histogram object with two stripes per processor.
+     */
+    public Histogram() {
+        int n = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) << 1;
+        this.stripes = new AtomicLongArray[n];
+        for (int i = 0; i < n; i++) {
+            stripes[i] = new AtomicLongArray(MAX + 1);
+        }
+        this.mask = n - 1;
+    }
+
+    /**
+     * Records a value.
+     *
+     * @param value
+     *          the value, negative values counting as 0
+     */
+    public void record(long value) {
+        long v = Math.max(value, 0);
+        AtomicLongArray stripe = stripes[(int) Thread.currentThread().threadId() & mask];
+        stripe.incrementAndGet(bucket(v));
+        stripe.addAndGet(SUM, v);
+        long max = stripe.get(MAX);
+        while (v > max && !stripe.compareAndSet(MAX, max, v)) {
+            max = stripe.get(MAX);
+        }
+    }
+
+    /**
+     * Takes a snapshot of the recorded values.
+     *
+     * @return the snapshot
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        long sum = 0;
+        long max = 0;
+        for (AtomicLongArray stripe : stripes) {
+            for (int b = 0; b < BUCKETS; b++) {
+                long c = stripe.get(b);
+                counts[b] += c;
+                count += c;
+            }
+            sum += stripe.get(SUM);
+            max = Math.max(max, stripe.get(MAX));
+        }
+        return new Snapshot(counts, count, sum, max);
+    }
+
+    /**
+     * Gets the bucket of a value.
+     *
+     * @param v
+     *          the non-negative value
+     *
+     * @return the bucket index
+     */
+    static int bucket(long v) {
+        if (v < 1 << SUB_BITS) {
+            return (int) v;
+        }
+        int exp = 63 - Long.numberOfLeadingZeros(v);
+        int sub = (int) (v >>> (exp - SUB_BITS)) & ((1 << SUB_BITS) - 1);
+        return (exp - SUB_BITS + 1) << SUB_BITS | sub;
+    }
+
+    /**
+     * Gets the largest value of a bucket.
+     *
+     * @param b
+     *          the bucket index
+     *
+     * @return the largest value falling into the bucket
+     */
+    static long upperBound(int b) {
+        if (b < 1 << SUB_BITS) {
+            return b;
+        }
+        int exp = (b >>> SUB_BITS) + SUB_BITS - 1;
+        long sub = b & ((1 << SUB_BITS) - 1);
+        return (1L << exp | sub << (exp - SUB_BITS)) + (1L << (exp - SUB_BITS)) - 1;
+    }
+
+    /**
+     * The values recorded by a histogram up to some point.
+     */
+    public static class Snapshot {
+
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        /**
+         * Gets the number of recorded values.
+         *
+         * @return the count
+         */
+        public long count() {
+            return this.count;
+        }
+
+        /**
+         * Gets the mean of the recorded values.
+         *
+         * @return the mean, 0 if nothing was recorded
+         */
+        public double mean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /**
+         * Gets the largest recorded value.
+         *
+         * @return the maximum, 0 if nothing was recorded
+         */
+        public long max() {
+            return this.max;
+        }
+
+        /**
+         * Gets a percentile of the recorded values, as the top of the bucket it falls into.
+         *
+         * @param quantile
+         *          the quantile, from 0 to 1
+         *
+         * @return the percentile, 0 if nothing was recorded
+         */
+        public long percentile(double quantile) {
+            long rank = (long) Math.ceil(quantile * count);
+            long seen = 0;
+            for (int b = 0; b < counts.length; b++) {
+                seen += counts[b];
+                if (seen >= rank && seen > 0) {
+                    return Math.min(upperBound(b), max);
+                }
+            }
+            return 0;
+        }
+    }
+
+}
@@ -0,0 +1,120 @@
+package metrics;
+
+import controller.Agent;
+import controller.Player;
+import controller.PlayerList;
+import model.Card;
+import model.Deck;
+
+/**
+ * Agent that times the decisions of another agent into an EngineMetrics.
+ * Reading the clock costs about as much as a simple agent's decision, so fast agents
+ * can be timed on a sample of their decisions only.
+ */
+public class TimedAgent implements Agent {
+
+    /**
+     * The agent making the decisions.
+     */
+    private final Agent agent;
+    /**
+     * The metrics the latencies are recorded into.
+     */
+    private final EngineMetrics metrics;
+    /**
+     * One decision in this many is timed.
+     */
+    private final int sampleEvery;
+    /**
+     * The decisions left until the next timed one.
+     */
+    private int untilSample;
+
+    /**
+     * Public constructor for a TimedAgent object timing every decision.
+     *
+     * @param agent
+     *          the agent making the decisions
+     * @param metrics
+     *          the metrics the latencies are recorded into
+     */
+    public TimedAgent(Agent agent, EngineMetrics metrics) {
+        this(agent, metrics, 1);
+    }
+
+    /**
+     * Public constructor for a TimedAgent object timing a sample of the decisions.
+     *
+     * @param agent
+     *          the agent making the decisions
+     * @param metrics
+     *          the metrics the latencies are recorded into
+     * @param sampleEvery
+     *          one decision in this many is timed
+     */
+    public TimedAgent(Agent agent, EngineMetrics metrics, int sampleEvery) {
+        if (sampleEvery <= 0) {
+            throw new IllegalArgumentException("The sample rate must be positive");
+        }
+        this.agent = agent;
+        this.metrics = metrics;
+        this.sampleEvery = sampleEvery;
+        this.untilSample = sampleEvery;
+    }
+
+    /**
+     * Checks to see if the coming decision is timed.
+     *
+     * @return true if it is timed, false if not
+     */
+    private boolean sample() {
+        if (--untilSample == 0) {
+            untilSample = sampleEvery;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the agent making the decisions.
+     *
+     * @return the timed agent
+     */
+    public Agent agent() {
+        return this.agent;
+    }
+
+    @Override
+    public int chooseCard(Player user, PlayerList players, Deck deck) {
+        if (!sample()) {
+            return agent.chooseCard(user, players, deck);
+        }
+        long start = System.nanoTime();
+        int card = agent.chooseCard(user, players, deck);
+        metrics.recordDecision(System.nanoTime() - start);
+        return card;
+    }
+
+    @Override
+    public Player chooseOpponent(Player user, Card card, PlayerList players) {
+        if (!sample()) {
+            return agent.chooseOpponent(user, card, players);
+        }
+        long start = System.nanoTime();
+        Player opponent = agent.chooseOpponent(user, card, players);
+        metrics.recordDecision(System.nanoTime() - start);
+        return opponent;
+    }
+
+    @Override
+    public Card chooseGuess(Player user, Player opponent, PlayerList players) {
+        if (!sample()) {
+            return agent.chooseGuess(user, opponent, players);
+        }
+        long start = System.nanoTime();
+        Card guess = agent.chooseGuess(user, opponent, players);
+        metrics.recordDecision(System.nanoTime() - start);
+        return guess;
+    }
+
+}
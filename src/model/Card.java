@@ -4,14 +4,14 @@ package model;
  * Enum with all possible cards.
  */
 public enum Card {
-    GUARD("Guard", 1),
-    PRIEST("Priest", 2),
-    BARON("Baron", 3),
-    HANDMAIDEN("Handmaiden", 4),
-    PRINCE("Prince", 5),
-    KING("King", 6),
-    COUNTESS("Countess", 7),
-    PRINCESS("Princess", 8);
+    GUARD("Guard", 1, 5),
+    PRIEST("Priest", 2, 2),
+    BARON("Baron", 3, 2),
+    HANDMAIDEN("Handmaiden", 4, 2),
+    PRINCE("Prince", 5, 2),
+    KING("King", 6, 1),
+    COUNTESS("Countess", 7, 1),
+    PRINCESS("Princess", 8, 1);
 
     /**
      * The name of the card.
@@ -21,6 +21,10 @@ public enum Card {
      * The value of the card.
      */
     private int value;
+    /**
+     * The number of copies of the card in a full deck.
+     */
+    private int copies;
 
     /**
      * All possible card names.
@@ -43,10 +47,13 @@ public enum Card {
      *          the name of the card
      * @param value
      *          the value of the card
+     * @param copies
+     *          the number of copies in a full deck
      */
-    Card(String name, int value) {
+    Card(String name, int value, int copies) {
         this.name = name;
         this.value = value;
+        this.copies = copies;
     }
 
     /**
@@ -58,6 +65,15 @@ public enum Card {
         return this.value;
     }
 
+    /**
+     * Getter for the number of copies of the card in a full deck.
+     *
+     * @return the number of copies
+     */
+    public int copies() {
+        return this.copies;
+    }
+
     /**
      * Getter for the name of the card.
      *
@@ -67,6 +83,32 @@ public enum Card {
         return this.name;
     }
 
+    /**
+     * Checks to see if playing the card requires choosing an opponent.
+     *
+     * @return true if the card targets an opponent, false if not
+     */
+    public boolean isTargeted() {
+        return this.value < 4 || this.value == 5 || this.value == 6;
+    }
+
+    /**
+     * Finds the card with the given name, ignoring case.
+     *
+     * @param name
+     *          the name of the card
+     *
+     * @return the card with the given name or null if there is no such card
+     */
+    public static Card forName(String name) {
+        for (Card c : values()) {
+            if (c.name.equalsIgnoreCase(name)) {
+                return c;
+            }
+        }
+        return null;
+    }
+
     @Override
     public String toString() {
         return this.name + " (" + value + ")";
@@ -1,7 +1,6 @@
 package model;
 
-import java.util.Collections;
-import java.util.Stack;
+import java.util.random.RandomGenerator;
 
 /**
  * Class representing a deck of Card objects.
@@ -9,15 +8,68 @@ import java.util.Stack;
 public class Deck {
 
     /**
-     * Stack of Card objects.
+     * The number of cards in a full deck.
      */
-    private Stack<Card> deck;
+    public static final int SIZE = 16;
+
+    /**
+     * The cards of a full deck. Dealt cards stay in the array above the cursor,
+     * so a new round only needs to reset the cursor.
+     */
+    private Card[] deck;
+    /**
+     * The number of cards left in the deck. The top card is at index size - 1.
+     */
+    private int size;
+    /**
+     * The source of randomness used for shuffling.
+     */
+    private RandomGenerator random;
+    /**
+     * The Zobrist hash of the cards left in the deck, by position.
+     */
+    private long hash;
+    /**
+     * The Zobrist hash of the whole deck array, dealt cards included, which the deck hashes to
+     * once it is built again.
+     */
+    private long fullHash;
 
     /**
      * Public constructor for a Deck object.
      */
     public Deck() {
-        this.deck = new Stack<>();
+        this(RandomGenerator.getDefault());
+    }
+
+    /**
+     * Public constructor for a Deck object shuffled by the given source of randomness.
+     * Two decks with equally seeded sources are shuffled the same way.
+     *
+     * @param random
+     *          the source of randomness used for shuffling
+     */
+    public Deck(RandomGenerator random) {
+        this.deck = new Card[SIZE];
+        this.random = random;
+        int i = 0;
+        for (int j = 0; j < 5; j++) {
+            deck[i++] = Card.GUARD;
+        }
+
+        for (int j = 0; j < 2; j++) {
+            deck[i++] = Card.PRIEST;
+            deck[i++] = Card.BARON;
+            deck[i++] = Card.HANDMAIDEN;
+            deck[i++] = Card.PRINCE;
+        }
+
+        deck[i++] = Card.KING;
+        deck[i++] = Card.COUNTESS;
+        deck[i] = Card.PRINCESS;
+        for (i = 0; i < SIZE; i++) {
+            fullHash ^= Zobrist.deck(i, deck[i]);
+        }
     }
 
     /**
@@ -30,38 +82,78 @@ public class Deck {
      *  1 King
      *  1 Countess
      *  1 Princess
+     * Every dealt card is still held in the deck array, so this only resets the cursor.
      */
     public void buildDeck() {
-        for (int i = 0; i < 5; i++) {
-            deck.push(Card.GUARD);
-        }
-
-        for (int i = 0; i < 2; i++) {
-            deck.push(Card.PRIEST);
-            deck.push(Card.BARON);
-            deck.push(Card.HANDMAIDEN);
-            deck.push(Card.PRINCE);
-        }
-
-        deck.push(Card.KING);
-        deck.push(Card.COUNTESS);
-        deck.push(Card.PRINCESS);
+        this.size = SIZE;
+        this.hash = this.fullHash;
     }
 
     /**
-     * Shuffles the stack of Card objects
+     * Shuffles the remaining cards in place (Fisher-Yates).
      */
     public void shuffleDeck() {
-        Collections.shuffle(deck);
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Card c = deck[i];
+            long swap = Zobrist.deck(i, c) ^ Zobrist.deck(j, deck[j]) ^ Zobrist.deck(i, deck[j]) ^ Zobrist.deck(j, c);
+            deck[i] = deck[j];
+            deck[j] = c;
+            hash ^= swap;
+            fullHash ^= swap;
+        }
     }
 
     /**
-     * Pops off the top Card in the Stack.
+     * Takes the top Card off the deck.
      *
      * @return the top card of the deck
      */
     public Card dealCard() {
-        return deck.pop();
+        if (size == 0) {
+            throw new IllegalStateException("The deck is empty");
+        }
+        Card card = deck[--size];
+        hash ^= Zobrist.deck(size, card);
+        return card;
+    }
+
+    /**
+     * Gets a card by the order in which it is dealt since the deck was last built.
+     * Dealt cards can still be read until the deck is built again.
+     *
+     * @param idx
+     *          the position in dealing order, 0 for the first card dealt
+     *
+     * @return the card at that position
+     */
+    public Card cardAt(int idx) {
+        return deck[SIZE - 1 - idx];
+    }
+
+    /**
+     * Stacks the full deck in the given order instead of shuffling it.
+     *
+     * @param order
+     *          the cards of a full deck, the first card being dealt first
+     */
+    public void arrange(Card[] order) {
+        int[] counts = new int[Card.values().length];
+        for (Card c : order) {
+            counts[c.ordinal()]++;
+        }
+        for (Card c : Card.values()) {
+            if (counts[c.ordinal()] != c.copies() || order.length != SIZE) {
+                throw new IllegalArgumentException("The order is not a full deck");
+            }
+        }
+        fullHash = 0;
+        for (int i = 0; i < SIZE; i++) {
+            deck[SIZE - 1 - i] = order[i];
+            fullHash ^= Zobrist.deck(SIZE - 1 - i, order[i]);
+        }
+        this.size = SIZE;
+        this.hash = fullHash;
     }
 
     /**
@@ -70,6 +162,24 @@ public class Deck {
      * @return true if the deck has more cards, false if not
      */
     public boolean hasMoreCards() {
-        return !deck.isEmpty();
+        return size > 0;
+    }
+
+    /**
+     * Gets the number of cards left in the deck.
+     *
+     * @return the number of cards left
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Gets the Zobrist hash of the cards left in the deck. It depends on their order.
+     *
+     * @return the hash of the deck
+     */
+    public long hash() {
+        return this.hash;
     }
 }
@@ -0,0 +1,110 @@
+package model;
+
+/**
+ * Packs a move into a single int so that search never allocates to describe an action.
+ * Bit 0 holds the position of the played card in the hand, bits 1-4 the target seat
+ * and bits 5-8 the value of the guessed card.
+ */
+public final class Move {
+
+    /**
+     * Target seat used when the played card has no target.
+     */
+    public static final int NO_TARGET = 15;
+    /**
+     * The most legal moves a player can have at a table of eight: a guard in each slot,
+     * each with seven targets and seven guesses.
+     */
+    public static final int MAX_MOVES = 2 * 7 * 7;
+
+    private Move() {
+    }
+
+    /**
+     * Packs a move.
+     *
+     * @param slot
+     *          the position of the played card in the hand (0 or 1)
+     * @param target
+     *          the targeted seat, NO_TARGET if there is none
+     * @param guess
+     *          the guessed card when playing a guard, null otherwise
+     *
+     * @return the packed move
+     */
+    public static int of(int slot, int target, Card guess) {
+        return of(slot, target, guess == null ? 0 : guess.value());
+    }
+
+    /**
+     * Packs a move.
+     *
+     * @param slot
+     *          the position of the played card in the hand (0 or 1)
+     * @param target
+     *          the targeted seat, NO_TARGET if there is none
+     * @param guess
+     *          the value of the guessed card, 0 if there is none
+     *
+     * @return the packed move
+     */
+    public static int of(int slot, int target, int guess) {
+        return slot | target << 1 | guess << 5;
+    }
+
+    /**
+     * Gets the position of the played card in the hand.
+     *
+     * @param move
+     *          the packed move
+     *
+     * @return 0 for first, 1 for second
+     */
+    public static int slot(int move) {
+        return move & 1;
+    }
+
+    /**
+     * Gets the targeted seat.
+     *
+     * @param move
+     *          the packed move
+     *
+     * @return the targeted seat, NO_TARGET if there is none
+     */
+    public static int target(int move) {
+        return move >>> 1 & 15;
+    }
+
+    /**
+     * Gets the value of the guessed card.
+     *
+     * @param move
+     *          the packed move
+     *
+     * @return the value of the guessed card, 0 if there is none
+     */
+    public static int guess(int move) {
+        return move >>> 5 & 15;
+    }
+
+    /**
+     * Describes a packed move.
+     *
+     * @param move
+     *          the packed move
+     *
+     * @return a readable description of the move
+     */
+    public static String toString(int move) {
+        StringBuilder sb = new StringBuilder("play ").append(slot(move));
+        if (target(move) != NO_TARGET) {
+            sb.append(" at ").append(target(move));
+        }
+        if (guess(move) != 0) {
+            sb.append(" guessing ").append(Card.values()[guess(move) - 1].getName());
+        }
+        return sb.toString();
+    }
+
+}
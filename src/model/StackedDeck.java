@@ -0,0 +1,47 @@
+package model;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * Deck dealt in fixed orders instead of shuffled ones, used to replay recorded games.
+ * Every shuffle stacks the deck in the next queued order.
+ */
+public class StackedDeck extends Deck {
+
+    /**
+     * The orders of the coming rounds.
+     */
+    private Queue<Card[]> orders;
+
+    /**
+     * Public constructor for a StackedDeck object with no queued orders.
+     */
+    public StackedDeck() {
+        super(null);
+        this.orders = new ArrayDeque<>();
+    }
+
+    /**
+     * Queues the order of a coming round.
+     *
+     * @param order
+     *          the cards of a full deck, the first card being dealt first
+     */
+    public void addOrder(Card[] order) {
+        orders.add(order);
+    }
+
+    /**
+     * Stacks the deck in the next queued order.
+     */
+    @Override
+    public void shuffleDeck() {
+        Card[] order = orders.poll();
+        if (order == null) {
+            throw new IllegalStateException("No deck order left to replay");
+        }
+        arrange(order);
+    }
+
+}
@@ -0,0 +1,132 @@
+package model;
+
+/**
+ * Zobrist keys of the pieces making up a position. Every piece (a copy of a card in a seat's hand
+ * or used pile, a card at a position of the deck, a seat's protection or presence in the round, the
+ * seat to move) has a fixed random 64-bit key, and the hash of a position is the XOR of the keys of its pieces, so adding or
+ * removing a piece updates a hash with a single XOR.
+ * Copies of the same card are numbered in the order they arrive, so two equal cards in one pile have
+ * different keys and do not cancel out. Keys are mixed from the piece's coordinates rather than read
+ * from tables, so any seat and any deck position has one.
+ */
+public final class Zobrist {
+
+    private static final long SEED = 0x4C6F76654C657474L;
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+
+    private static final int HAND = 1;
+    private static final int USED = 2;
+    private static final int DECK = 3;
+    private static final int DECK_SIZE = 4;
+    private static final int PROTECTION = 5;
+    private static final int TURN = 6;
+    private static final int IN_ROUND = 7;
+
+    private Zobrist() {
+    }
+
+    /**
+     * Gets the key of a copy of a card held in a hand.
+     *
+     * @param seat
+     *          the seat holding the card
+     * @param card
+     *          the card
+     * @param copy
+     *          the number of copies of the card already in the hand when it arrived
+     *
+     * @return the key
+     */
+    public static long hand(int seat, Card card, int copy) {
+        return key(HAND, seat, card.ordinal(), copy);
+    }
+
+    /**
+     * Gets the key of a copy of a card in a used pile.
+     *
+     * @param seat
+     *          the seat of the used pile
+     * @param card
+     *          the card
+     * @param copy
+     *          the number of copies of the card already in the pile when it arrived
+     *
+     * @return the key
+     */
+    public static long used(int seat, Card card, int copy) {
+        return key(USED, seat, card.ordinal(), copy);
+    }
+
+    /**
+     * Gets the key of a card at a position of the deck.
+     *
+     * @param pos
+     *          the position in the deck array
+     * @param card
+     *          the card
+     *
+     * @return the key
+     */
+    public static long deck(int pos, Card card) {
+        return key(DECK, pos, card.ordinal(), 0);
+    }
+
+    /**
+     * Gets the key of the number of cards left in the deck, for hashes that cannot see the deck.
+     *
+     * @param size
+     *          the number of cards left
+     *
+     * @return the key
+     */
+    public static long deckSize(int size) {
+        return key(DECK_SIZE, size, 0, 0);
+    }
+
+    /**
+     * Gets the key of a seat's handmaiden protection.
+     *
+     * @param seat
+     *          the protected seat
+     *
+     * @return the key
+     */
+    public static long protection(int seat) {
+        return key(PROTECTION, seat, 0, 0);
+    }
+
+    /**
+     * Gets the key of a seat still holding cards.
+     *
+     * @param seat
+     *          the seat
+     *
+     * @return the key
+     */
+    public static long inRound(int seat) {
+        return key(IN_ROUND, seat, 0, 0);
+    }
+
+    /**
+     * Gets the key of the seat to take the next turn.
+     *
+     * @param seat
+     *          the seat
+     *
+     * @return the key
+     */
+    public static long turn(int seat) {
+        return key(TURN, seat, 0, 0);
+    }
+
+    /**
+     * Mixes the coordinates of a piece into its key (SplitMix64 finalizer).
+     */
+    private static long key(int kind, int a, int b, int c) {
+        long z = SEED + ((((long) kind << 16 | a) << 8 | b) << 8 | c) * GOLDEN;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+}
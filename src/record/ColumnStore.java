@@ -0,0 +1,301 @@
+package record;
+
+import model.Card;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+
+/**
+ * Read-only view of a columnar store written by ColumnWriter, with a parallel scan engine.
+ * Columns are memory-mapped and scanned in blocks: each block is copied into plain byte arrays,
+ * so aggregations are simple counted loops over arrays that the JIT can unroll and vectorize,
+ * and blocks are spread over the common fork/join pool.
+ */
+public class ColumnStore {
+
+    /**
+     * The number of rows in a scanned block. Divides the mapped segment size,
+     * so no block straddles two segments.
+     */
+    public static final int BLOCK = 1 << 16;
+    /**
+     * The size of each mapped segment of a column file.
+     */
+    private static final int SEGMENT = 1 << 30;
+    /**
+     * The number of turn numbers reported by guardHitRateByTurn.
+     */
+    private static final int MAX_TURNS = 16;
+
+    /**
+     * The move columns, each as mapped segments.
+     */
+    private final MappedByteBuffer[][] moveColumns;
+    /**
+     * The round columns, each as mapped segments.
+     */
+    private final MappedByteBuffer[][] roundColumns;
+    /**
+     * The number of plays.
+     */
+    private final long moves;
+    /**
+     * The number of rounds.
+     */
+    private final long rounds;
+
+    /**
+     * Public constructor for a ColumnStore object.
+     *
+     * @param dir
+     *          the store directory
+     *
+     * @throws IOException
+     *          if a column file cannot be mapped
+     */
+    public ColumnStore(Path dir) throws IOException {
+        this.moveColumns = new MappedByteBuffer[ColumnWriter.MOVE_COLUMNS.length][];
+        this.roundColumns = new MappedByteBuffer[ColumnWriter.ROUND_COLUMNS.length][];
+        long[] moveRows = new long[1];
+        long[] roundRows = new long[1];
+        for (int i = 0; i < moveColumns.length; i++) {
+            moveColumns[i] = map(ColumnWriter.fileOf(dir, "move", ColumnWriter.MOVE_COLUMNS[i]), moveRows, i == 0);
+        }
+        for (int i = 0; i < roundColumns.length; i++) {
+            roundColumns[i] = map(ColumnWriter.fileOf(dir, "round", ColumnWriter.ROUND_COLUMNS[i]), roundRows, i == 0);
+        }
+        this.moves = moveRows[0];
+        this.rounds = roundRows[0];
+    }
+
+    /**
+     * Maps a column file in segments and checks its length against the other columns of its table.
+     */
+    private static MappedByteBuffer[] map(Path file, long[] rows, boolean first) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (first) {
+                rows[0] = size;
+            } else if (size != rows[0]) {
+                throw new IOException("Column " + file + " has " + size + " rows, expected " + rows[0]);
+            }
+            MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((size + SEGMENT - 1) / SEGMENT)];
+            for (int s = 0; s < segments.length; s++) {
+                long offset = (long) s * SEGMENT;
+                segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(SEGMENT, size - offset));
+            }
+            return segments;
+        }
+    }
+
+    /**
+     * Gets the number of plays in the store.
+     *
+     * @return the number of plays
+     */
+    public long moves() {
+        return this.moves;
+    }
+
+    /**
+     * Gets the number of rounds in the store.
+     *
+     * @return the number of rounds
+     */
+    public long rounds() {
+        return this.rounds;
+    }
+
+    /**
+     * Scans every play in parallel blocks. Block columns are indexed by the move column constants of ColumnWriter.
+     *
+     * @param init
+     *          creates an empty partial result
+     * @param scanner
+     *          folds a block of plays into a partial result
+     * @param merge
+     *          combines two partial results
+     * @param <T>
+     *          the type of the result
+     *
+     * @return the combined result
+     */
+    public <T> T scanMoves(Supplier<T> init, BlockScanner<T> scanner, BinaryOperator<T> merge) {
+        return scan(moveColumns, moves, init, scanner, merge);
+    }
+
+    /**
+     * Scans every round in parallel blocks. Block columns are indexed by the ROUND_ constants of ColumnWriter.
+     *
+     * @param init
+     *          creates an empty partial result
+     * @param scanner
+     *          folds a block of rounds into a partial result
+     * @param merge
+     *          combines two partial results
+     * @param <T>
+     *          the type of the result
+     *
+     * @return the combined result
+     */
+    public <T> T scanRounds(Supplier<T> init, BlockScanner<T> scanner, BinaryOperator<T> merge) {
+        return scan(roundColumns, rounds, init, scanner, merge);
+    }
+
+    private static <T> T scan(MappedByteBuffer[][] columns, long rows, Supplier<T> init,
+                              BlockScanner<T> scanner, BinaryOperator<T> merge) {
+        long blocks = (rows + BLOCK - 1) / BLOCK;
+        ThreadLocal<Block> buffers = ThreadLocal.withInitial(() -> new Block(columns.length));
+        return LongStream.range(0, blocks).parallel().mapToObj(b -> {
+            Block block = buffers.get();
+            long start = b * BLOCK;
+            block.length = (int) Math.min(BLOCK, rows - start);
+            int segment = (int) (start / SEGMENT);
+            int offset = (int) (start % SEGMENT);
+            for (int c = 0; c < columns.length; c++) {
+                columns[c][segment].get(offset, block.columns[c], 0, block.length);
+            }
+            T partial = init.get();
+            scanner.scan(partial, block);
+            return partial;
+        }).reduce(merge).orElseGet(init);
+    }
+
+    /**
+     * Computes the share of guard plays at a target that guessed correctly, by turn number.
+     *
+     * @return the hit rate of each turn number, NaN for turns without guard plays
+     */
+    public double[] guardHitRateByTurn() {
+        long[] counts = scanMoves(() -> new long[2 * MAX_TURNS], (acc, block) -> {
+            byte[] card = block.columns[ColumnWriter.CARD];
+            byte[] target = block.columns[ColumnWriter.TARGET];
+            byte[] outcome = block.columns[ColumnWriter.OUTCOME];
+            byte[] turn = block.columns[ColumnWriter.TURN];
+            for (int i = 0; i < block.length; i++) {
+                if (card[i] == 1 && target[i] >= 0) {
+                    acc[turn[i]]++;
+                    acc[MAX_TURNS + turn[i]] += outcome[i];
+                }
+            }
+        }, ColumnStore::add);
+        double[] rates = new double[MAX_TURNS];
+        for (int t = 0; t < MAX_TURNS; t++) {
+            rates[t] = (double) counts[MAX_TURNS + t] / counts[t];
+        }
+        return rates;
+    }
+
+    /**
+     * Computes the share of rounds won by the player who was first to play the given card.
+     *
+     * @param card
+     *          the card
+     *
+     * @return the win rate, NaN if the card was never played
+     */
+    public double firstPlayWinRate(Card card) {
+        byte value = (byte) card.value();
+        long[] counts = scanMoves(() -> new long[2], (acc, block) -> {
+            byte[] cards = block.columns[ColumnWriter.CARD];
+            byte[] first = block.columns[ColumnWriter.FIRST];
+            byte[] won = block.columns[ColumnWriter.WON];
+            long plays = 0;
+            long wins = 0;
+            for (int i = 0; i < block.length; i++) {
+                int hit = cards[i] == value ? first[i] : 0;
+                plays += hit;
+                wins += hit & won[i];
+            }
+            acc[0] += plays;
+            acc[1] += wins;
+        }, ColumnStore::add);
+        return (double) counts[1] / counts[0];
+    }
+
+    /**
+     * Counts the plays of each card.
+     *
+     * @return the number of plays, indexed by card value
+     */
+    public long[] cardPlayCounts() {
+        return scanMoves(() -> new long[9], (acc, block) -> {
+            byte[] cards = block.columns[ColumnWriter.CARD];
+            for (int i = 0; i < block.length; i++) {
+                acc[cards[i]]++;
+            }
+        }, ColumnStore::add);
+    }
+
+    /**
+     * Computes the share of rounds won by each seat.
+     *
+     * @return the win rate, indexed by seat
+     */
+    public double[] seatWinRates() {
+        long[] wins = scanRounds(() -> new long[8], (acc, block) -> {
+            byte[] winner = block.columns[ColumnWriter.ROUND_WINNER];
+            for (int i = 0; i < block.length; i++) {
+                acc[winner[i]]++;
+            }
+        }, ColumnStore::add);
+        double[] rates = new double[wins.length];
+        for (int s = 0; s < wins.length; s++) {
+            rates[s] = (double) wins[s] / rounds;
+        }
+        return rates;
+    }
+
+    private static long[] add(long[] a, long[] b) {
+        for (int i = 0; i < a.length; i++) {
+            a[i] += b[i];
+        }
+        return a;
+    }
+
+    /**
+     * A block of rows copied out of the mapped columns.
+     * Only the first length rows of each column are valid.
+     */
+    public static class Block {
+
+        /**
+         * The values of each column.
+         */
+        public final byte[][] columns;
+        /**
+         * The number of rows in the block.
+         */
+        public int length;
+
+        Block(int columns) {
+            this.columns = new byte[columns][BLOCK];
+        }
+    }
+
+    /**
+     * Folds a block of rows into a partial result.
+     *
+     * @param <T>
+     *          the type of the partial result
+     */
+    public interface BlockScanner<T> {
+
+        /**
+         * Folds a block into a partial result.
+         *
+         * @param partial
+         *          the partial result to update
+         * @param block
+         *          the block of rows
+         */
+        void scan(T partial, Block block);
+    }
+
+}
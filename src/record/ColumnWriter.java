@@ -0,0 +1,199 @@
+package record;
+
+import controller.GameListener;
+import controller.Player;
+import controller.PlayerList;
+import model.Card;
+import model.Deck;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Records games into a columnar store: one file per column, one byte per value,
+ * appended a round at a time. The store is read by ColumnStore.
+ *
+ * Move columns, one row per play:
+ *  turn      the number of the play within its round
+ *  seat      the seat of the player
+ *  card      the value of the played card
+ *  target    the targeted seat, -1 if none
+ *  guess     the value of the guessed card, 0 if none
+ *  outcome   1 if the play knocked an opponent out, -1 if it knocked the player out, 0 otherwise
+ *  blocks    the player's block count before the round
+ *  won       1 if the player won the round, 0 if not
+ *  first     1 if this is the first time the card was played in the round, 0 if not
+ * Round columns, one row per round:
+ *  seats     the number of seats
+ *  winner    the winning seat
+ *  compared  1 if the used piles decided the round, 0 if not
+ *  moves     the number of plays in the round
+ *
+ * A writer is fed by one game thread at a time.
+ */
+public class ColumnWriter implements GameListener, Closeable {
+
+    static final String[] MOVE_COLUMNS = {"turn", "seat", "card", "target", "guess", "outcome", "blocks", "won", "first"};
+    static final String[] ROUND_COLUMNS = {"seats", "winner", "compared", "moves"};
+
+    /*
+     * Index of each move column in a scanned block.
+     */
+    public static final int TURN = 0;
+    public static final int SEAT = 1;
+    public static final int CARD = 2;
+    public static final int TARGET = 3;
+    public static final int GUESS = 4;
+    public static final int OUTCOME = 5;
+    public static final int BLOCKS = 6;
+    public static final int WON = 7;
+    public static final int FIRST = 8;
+
+    /*
+     * Index of each round column in a scanned block.
+     */
+    public static final int ROUND_SEATS = 0;
+    public static final int ROUND_WINNER = 1;
+    public static final int ROUND_COMPARED = 2;
+    public static final int ROUND_MOVES = 3;
+
+    /**
+     * The most plays a round can hold: every card of the deck played once.
+     */
+    private static final int MAX_MOVES = Deck.SIZE;
+
+    /**
+     * The move column files.
+     */
+    private final OutputStream[] moveColumns;
+    /**
+     * The round column files.
+     */
+    private final OutputStream[] roundColumns;
+    /**
+     * The plays of the current round, by column then play.
+     */
+    private final byte[][] round;
+    /**
+     * The number of plays in the current round.
+     */
+    private int moves;
+    /**
+     * The cards played so far in the current round, one bit per value.
+     */
+    private int played;
+
+    /**
+     * Public constructor for a ColumnWriter object. An existing store is appended to.
+     *
+     * @param dir
+     *          the store directory
+     *
+     * @throws IOException
+     *          if the column files cannot be opened
+     */
+    public ColumnWriter(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        this.moveColumns = open(dir, "move", MOVE_COLUMNS);
+        this.roundColumns = open(dir, "round", ROUND_COLUMNS);
+        this.round = new byte[MOVE_COLUMNS.length][MAX_MOVES];
+    }
+
+    private static OutputStream[] open(Path dir, String table, String[] columns) throws IOException {
+        OutputStream[] out = new OutputStream[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            out[i] = new BufferedOutputStream(Files.newOutputStream(fileOf(dir, table, columns[i]),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND), 1 << 16);
+        }
+        return out;
+    }
+
+    /**
+     * Gets the file of a column.
+     *
+     * @param dir
+     *          the store directory
+     * @param table
+     *          "move" or "round"
+     * @param column
+     *          the column name
+     *
+     * @return the column file
+     */
+    static Path fileOf(Path dir, String table, String column) {
+        return dir.resolve(table + "." + column + ".col");
+    }
+
+    @Override
+    public void roundStarted(PlayerList players, Deck deck) {
+        moves = 0;
+        played = 0;
+    }
+
+    @Override
+    public void cardPlayed(Player user, Card card, Player target, Card guess) {
+        int bit = 1 << card.value();
+        round[TURN][moves] = (byte) moves;
+        round[SEAT][moves] = (byte) user.getSeat();
+        round[CARD][moves] = (byte) card.value();
+        round[TARGET][moves] = (byte) (target == null ? -1 : target.getSeat());
+        round[GUESS][moves] = (byte) (guess == null ? 0 : guess.value());
+        round[OUTCOME][moves] = (byte) (card == Card.PRINCESS ? -1 : 0);
+        round[BLOCKS][moves] = (byte) user.getBlockCount();
+        round[FIRST][moves] = (byte) ((played & bit) == 0 ? 1 : 0);
+        played |= bit;
+        moves++;
+    }
+
+    @Override
+    public void guardGuessed(Player user, Player opponent, Card guess, boolean correct) {
+        round[OUTCOME][moves - 1] = (byte) (correct ? 1 : 0);
+    }
+
+    @Override
+    public void baronCompared(Player user, Player opponent, Player loser, boolean tied) {
+        round[OUTCOME][moves - 1] = (byte) (loser == user ? -1 : 1);
+    }
+
+    @Override
+    public void princeDiscarded(Player opponent, Card discarded, Card drawn) {
+        round[OUTCOME][moves - 1] = (byte) (drawn == null ? 1 : 0);
+    }
+
+    @Override
+    public void roundWon(Player winner, PlayerList players) {
+        int seat = winner.getSeat();
+        for (int i = 0; i < moves; i++) {
+            round[WON][i] = (byte) (round[SEAT][i] == seat ? 1 : 0);
+        }
+        boolean compared = players.liveCount() != 1;
+        try {
+            for (int c = 0; c < moveColumns.length; c++) {
+                moveColumns[c].write(round[c], 0, moves);
+            }
+            roundColumns[ROUND_SEATS].write(players.size());
+            roundColumns[ROUND_WINNER].write(seat);
+            roundColumns[ROUND_COMPARED].write(compared ? 1 : 0);
+            roundColumns[ROUND_MOVES].write(moves);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (OutputStream out : moveColumns) {
+            out.close();
+        }
+        for (OutputStream out : roundColumns) {
+            out.close();
+        }
+    }
+
+}
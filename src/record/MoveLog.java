@@ -0,0 +1,266 @@
+package record;
+
+import controller.GameListener;
+import controller.Player;
+import controller.PlayerList;
+import model.Card;
+import model.Deck;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Append-only binary log of every play, written through a memory-mapped file.
+ * A log holds any number of games and is read back by MoveLogReader.
+ *
+ * Layout, after the 5 byte header "LLOG" and version:
+ *  'G' seats, then per seat a length byte and the UTF-8 name    game start
+ *  'R' 8 bytes, the 16 card values - 1 packed two per byte      round start, cards in dealing order
+ *  'M' 2 bytes little endian                                    one play
+ *  'W' seat                                                     round won
+ *  'E' seat                                                     game won
+ * A play packs the user seat (bits 0-2), card value - 1 (3-5), target seat (6-8, the user's own seat
+ * if the card had no target), guess value - 1 (9-11, 0 for none) and the card drawn at the start of
+ * the turn (12-15, 0 for none).
+ *
+ * The file is mapped ahead of the records and only cut to the logged length on close. A log that
+ * was not closed, after a crash, ends in zeros or in an unfinished game; it is cut back to the end
+ * of its last complete game when it is opened again, and the number of bytes cut is reported by discarded.
+ *
+ * A log is written by one game thread at a time.
+ */
+public class MoveLog implements GameListener, Closeable {
+
+    static final byte[] MAGIC = {'L', 'L', 'O', 'G', 1};
+    static final byte GAME = 'G';
+    static final byte ROUND = 'R';
+    static final byte MOVE = 'M';
+    static final byte ROUND_WON = 'W';
+    static final byte GAME_WON = 'E';
+
+    /**
+     * Size of each mapped region of the file.
+     */
+    private static final int CHUNK = 1 << 20;
+
+    /**
+     * The log file.
+     */
+    private final FileChannel channel;
+    /**
+     * The currently mapped region.
+     */
+    private MappedByteBuffer buffer;
+    /**
+     * The file offset of the mapped region.
+     */
+    private long base;
+    /**
+     * The number of bytes cut from the end of an existing log when it was opened.
+     */
+    private final long discarded;
+    /**
+     * True while a game is being logged.
+     */
+    private boolean inGame;
+    /**
+     * The card drawn by the current player at the start of their turn, null if none.
+     */
+    private Card drawn;
+
+    /**
+     * Public constructor for a MoveLog object. An existing log is appended to after its last complete game.
+     *
+     * @param file
+     *          the log file
+     *
+     * @throws IOException
+     *          if the file cannot be opened or is not a move log
+     */
+    public MoveLog(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            long size = channel.size();
+            this.base = size == 0 ? 0 : end(channel);
+            this.discarded = size - base;
+            channel.truncate(base);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, base, CHUNK);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        if (base == 0) {
+            buffer.put(MAGIC);
+        }
+    }
+
+    /**
+     * Finds the end of the last complete game of a log by reading its records from the start.
+     *
+     * @param channel
+     *          the log file
+     *
+     * @return the file offset just past the last game won, or past the header if no game is complete
+     *
+     * @throws IOException
+     *          if the file cannot be read or is not a move log
+     */
+    private static long end(FileChannel channel) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Channels.newInputStream(channel.position(0)), 1 << 16));
+        byte[] magic = new byte[MAGIC.length];
+        if (in.read(magic) != magic.length || !Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a move log");
+        }
+        long position = MAGIC.length;
+        long end = position;
+        try {
+            while (true) {
+                int tag = in.read();
+                if (tag == GAME) {
+                    int seats = in.readUnsignedByte();
+                    position += 2;
+                    for (int i = 0; i < seats; i++) {
+                        int length = in.readUnsignedByte();
+                        in.skipNBytes(length);
+                        position += 1 + length;
+                    }
+                } else if (tag == ROUND) {
+                    in.skipNBytes(Deck.SIZE / 2);
+                    position += 1 + Deck.SIZE / 2;
+                } else if (tag == MOVE) {
+                    in.skipNBytes(2);
+                    position += 3;
+                } else if (tag == ROUND_WON) {
+                    in.skipNBytes(1);
+                    position += 2;
+                } else if (tag == GAME_WON) {
+                    in.skipNBytes(1);
+                    position += 2;
+                    end = position;
+                } else {
+                    return end;
+                }
+            }
+        } catch (EOFException e) {
+            return end;
+        }
+    }
+
+    @Override
+    public void roundStarted(PlayerList players, Deck deck) {
+        if (!inGame) {
+            inGame = true;
+            int length = 2;
+            byte[][] names = new byte[players.size()][];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = players.getSeat(i).getName().getBytes(StandardCharsets.UTF_8);
+                length += 1 + Math.min(names[i].length, 255);
+            }
+            ensure(length);
+            buffer.put(GAME).put((byte) names.length);
+            for (byte[] name : names) {
+                int n = Math.min(name.length, 255);
+                buffer.put((byte) n).put(name, 0, n);
+            }
+        }
+        ensure(9);
+        buffer.put(ROUND);
+        for (int i = 0; i < Deck.SIZE; i += 2) {
+            buffer.put((byte) (deck.cardAt(i).value() - 1 | deck.cardAt(i + 1).value() - 1 << 4));
+        }
+    }
+
+    @Override
+    public void cardDrawn(Player player, Card card) {
+        drawn = card;
+    }
+
+    @Override
+    public void cardPlayed(Player user, Card card, Player target, Card guess) {
+        int seat = user.getSeat();
+        int move = seat
+                | (card.value() - 1) << 3
+                | (target == null ? seat : target.getSeat()) << 6
+                | (guess == null ? 0 : guess.value() - 1) << 9
+                | (drawn == null ? 0 : drawn.value()) << 12;
+        drawn = null;
+        ensure(3);
+        buffer.put(MOVE).put((byte) move).put((byte) (move >>> 8));
+    }
+
+    @Override
+    public void roundWon(Player winner, PlayerList players) {
+        ensure(2);
+        buffer.put(ROUND_WON).put((byte) winner.getSeat());
+    }
+
+    @Override
+    public void gameWon(Player winner) {
+        ensure(2);
+        buffer.put(GAME_WON).put((byte) winner.getSeat());
+        inGame = false;
+    }
+
+    /**
+     * Makes sure the mapped region has room for a record, mapping the next region if not.
+     *
+     * @param length
+     *          the length of the record
+     */
+    private void ensure(int length) {
+        if (buffer.remaining() < length) {
+            base += buffer.position();
+            try {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, base, CHUNK);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of bytes cut from the end of the log when it was opened: the zeros and the
+     * unfinished game left by a writer that did not close it.
+     *
+     * @return the number of bytes discarded, 0 if the log was closed properly or is new
+     */
+    public long discarded() {
+        return this.discarded;
+    }
+
+    /**
+     * Gets the number of bytes logged.
+     *
+     * @return the length of the log
+     */
+    public long length() {
+        return base + buffer.position();
+    }
+
+    /**
+     * Flushes the log and cuts the file down to the logged length.
+     *
+     * @throws IOException
+     *          if the file cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.truncate(length());
+        channel.close();
+    }
+
+}
@@ -0,0 +1,280 @@
+package record;
+
+import controller.Agent;
+import controller.Game;
+import controller.GameListener;
+import controller.MulticastListener;
+import controller.Player;
+import controller.PlayerList;
+import model.Card;
+import model.Deck;
+import model.StackedDeck;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads a MoveLog through read-only memory-mapped windows and replays its games
+ * deterministically through the Game engine, without any console.
+ * A replay that does not reproduce the logged plays and winners fails with an IllegalStateException.
+ */
+public class MoveLogReader implements Closeable {
+
+    /**
+     * Size of each mapped window of the file.
+     */
+    private static final long WINDOW = 64L << 20;
+    /**
+     * Longest possible record: a game start with eight 255 byte names.
+     */
+    private static final int LONGEST_RECORD = 2 + 8 * 256;
+
+    private static final Card[] CARDS = Card.values();
+
+    /**
+     * The log file.
+     */
+    private final FileChannel channel;
+    /**
+     * The length of the log.
+     */
+    private final long size;
+    /**
+     * The currently mapped window.
+     */
+    private ByteBuffer buffer;
+    /**
+     * The file offset of the mapped window.
+     */
+    private long base;
+
+    /**
+     * Public constructor for a MoveLogReader object.
+     *
+     * @param file
+     *          the log file
+     *
+     * @throws IOException
+     *          if the file cannot be read or is not a move log
+     */
+    public MoveLogReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, WINDOW));
+        byte[] magic = new byte[MoveLog.MAGIC.length];
+        if (size < magic.length) {
+            throw new IOException("Not a move log");
+        }
+        buffer.get(magic);
+        if (!Arrays.equals(magic, MoveLog.MAGIC)) {
+            throw new IOException("Not a move log");
+        }
+    }
+
+    /**
+     * Checks to see if the log holds another game.
+     *
+     * @return true if there is another game, false if the log ends here
+     *
+     * @throws IllegalStateException
+     *          if something other than a game follows, such as the tail left by a writer that did not close the log
+     */
+    public boolean hasNextGame() {
+        ensure(1);
+        if (!buffer.hasRemaining()) {
+            return false;
+        }
+        if (buffer.get(buffer.position()) != MoveLog.GAME) {
+            throw new IllegalStateException("No game at byte " + (base + buffer.position()) + " of "
+                    + size + ": the log was not closed or is corrupt");
+        }
+        return true;
+    }
+
+    /**
+     * Replays the next game of the log.
+     *
+     * @param listener
+     *          the listener notified of the replayed game's events, null for none
+     *
+     * @return the winner of the game
+     */
+    public Player replayNext(GameListener listener) {
+        if (!hasNextGame()) {
+            throw new IllegalStateException("No game left in the log");
+        }
+        buffer.get();
+        int seats = buffer.get();
+        String[] names = new String[seats];
+        for (int i = 0; i < seats; i++) {
+            byte[] name = new byte[buffer.get() & 0xFF];
+            buffer.get(name);
+            names[i] = new String(name, StandardCharsets.UTF_8);
+        }
+
+        StackedDeck deck = new StackedDeck();
+        Replay replay = new Replay();
+        int gameWinner = -1;
+        while (gameWinner == -1) {
+            ensure(Deck.SIZE / 2 + 1);
+            if (!buffer.hasRemaining()) {
+                throw new IllegalStateException("The log ends in the middle of a game");
+            }
+            byte tag = buffer.get();
+            if (tag == MoveLog.ROUND) {
+                Card[] order = new Card[Deck.SIZE];
+                for (int i = 0; i < Deck.SIZE; i += 2) {
+                    int b = buffer.get();
+                    order[i] = CARDS[b & 7];
+                    order[i + 1] = CARDS[b >>> 4 & 7];
+                }
+                deck.addOrder(order);
+            } else if (tag == MoveLog.MOVE) {
+                replay.addMove(buffer.get() & 0xFF | (buffer.get() & 0xFF) << 8);
+            } else if (tag == MoveLog.ROUND_WON) {
+                replay.addRoundWinner(buffer.get());
+            } else if (tag == MoveLog.GAME_WON) {
+                gameWinner = buffer.get();
+            } else {
+                throw new IllegalStateException("Corrupt log record " + tag);
+            }
+        }
+
+        PlayerList players = new PlayerList(Math.max(seats, PlayerList.DEFAULT_CAPACITY));
+        for (String name : names) {
+            players.addPlayer(name, replay);
+        }
+        GameListener listeners = listener == null ? replay : new MulticastListener(replay, listener);
+        new Game(players, deck, listeners).start();
+        Player winner = players.getGameWinner();
+        if (winner.getSeat() != gameWinner) {
+            throw new IllegalStateException("Replay diverged: " + winner.getName() + " won the game");
+        }
+        return winner;
+    }
+
+    /**
+     * Replays every remaining game of the log.
+     *
+     * @param listener
+     *          the listener notified of the replayed games' events, null for none
+     *
+     * @return the number of games replayed
+     */
+    public long replayAll(GameListener listener) {
+        long games = 0;
+        while (hasNextGame()) {
+            replayNext(listener);
+            games++;
+        }
+        return games;
+    }
+
+    /**
+     * Makes sure the mapped window holds the next record, mapping the next window if not.
+     *
+     * @param length
+     *          the length needed
+     */
+    private void ensure(int length) {
+        long position = base + buffer.position();
+        if (buffer.remaining() < Math.max(length, LONGEST_RECORD) && base + buffer.limit() < size) {
+            base = position;
+            try {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, base, Math.min(size - base, WINDOW));
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot map the log", e);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Agent for every seat of a replayed game, playing the logged moves in order.
+     * It also listens to the game to check each play and round winner against the log.
+     */
+    private static class Replay implements Agent, GameListener {
+
+        private int[] moves = new int[64];
+        private int moveCount;
+        private int next;
+        private int[] roundWinners = new int[16];
+        private int roundCount;
+        private int round;
+
+        void addMove(int move) {
+            if (moveCount == moves.length) {
+                moves = Arrays.copyOf(moves, moveCount * 2);
+            }
+            moves[moveCount++] = move;
+        }
+
+        void addRoundWinner(int seat) {
+            if (roundCount == roundWinners.length) {
+                roundWinners = Arrays.copyOf(roundWinners, roundCount * 2);
+            }
+            roundWinners[roundCount++] = seat;
+        }
+
+        /**
+         * Gets the logged move the game is about to play.
+         *
+         * @param user
+         *          the player about to play
+         *
+         * @return the packed move
+         */
+        private int current(Player user) {
+            if (next == moveCount) {
+                throw new IllegalStateException("Replay diverged: the log has no more plays");
+            }
+            int move = moves[next];
+            if ((move & 7) != user.getSeat()) {
+                throw new IllegalStateException("Replay diverged: " + user.getName() + " is not the logged player");
+            }
+            return move;
+        }
+
+        @Override
+        public int chooseCard(Player user, PlayerList players, Deck deck) {
+            Card card = CARDS[current(user) >>> 3 & 7];
+            return user.hand().peek(0) == card ? 0 : 1;
+        }
+
+        @Override
+        public Player chooseOpponent(Player user, Card card, PlayerList players) {
+            return players.getSeat(current(user) >>> 6 & 7);
+        }
+
+        @Override
+        public Card chooseGuess(Player user, Player opponent, PlayerList players) {
+            return CARDS[current(user) >>> 9 & 7];
+        }
+
+        @Override
+        public void cardPlayed(Player user, Card card, Player target, Card guess) {
+            if (CARDS[current(user) >>> 3 & 7] != card) {
+                throw new IllegalStateException("Replay diverged: " + user.getName() + " played " + card);
+            }
+            next++;
+        }
+
+        @Override
+        public void roundWon(Player winner, PlayerList players) {
+            if (round == roundCount || roundWinners[round++] != winner.getSeat()) {
+                throw new IllegalStateException("Replay diverged: " + winner.getName() + " won the round");
+            }
+        }
+    }
+
+}
@@ -0,0 +1,521 @@
+package record;
+
+import controller.GameListener;
+import controller.Player;
+import controller.PlayerList;
+import model.Card;
+import model.Deck;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lifetime statistics of every player name, kept in a memory-mapped file and fed as a GameListener
+ * by any number of games at once.
+ *
+ * The file holds a header, an open-addressing hash index on the case-folded name (the same folding
+ * as PlayerList.getPlayer) and fixed-size records of counters:
+ *  header   magic, record capacity, records used
+ *  index    one int per slot, the record number plus one, 0 for an empty slot
+ *  records  the folded name, then games, games won, rounds, rounds won, blocks, and for each card
+ *           the times it was played and the rounds won holding it
+ * Counters are updated in place with atomic adds, so rounds of different games update a record
+ * without locking. Only the first sight of a name takes a lock, to claim a record and index it.
+ * A leaderboard of the players with the most blocks is built when the file is opened and kept up
+ * to date as blocks are won, by swapping in a new board with a compare-and-set.
+ */
+public final class PlayerStats implements GameListener, Closeable {
+
+    private static final Card[] CARDS = Card.values();
+    private static final long MAGIC = 0x3153544154534C4CL;
+
+    private static final int HEADER = 64;
+    private static final int CAPACITY_AT = 8;
+    private static final int COUNT_AT = 12;
+
+    /**
+     * The longest folded name in bytes; longer names are not tracked.
+     */
+    public static final int MAX_NAME = 62;
+    /**
+     * The largest number of players a file holds, keeping the file within one mapping.
+     */
+    public static final int MAX_CAPACITY = 1 << 22;
+
+    /**
+     * The counters of a record, as byte offsets into it.
+     */
+    private static final int GAMES = 64;
+    private static final int GAMES_WON = GAMES + 8;
+    private static final int ROUNDS = GAMES_WON + 8;
+    private static final int ROUNDS_WON = ROUNDS + 8;
+    private static final int BLOCKS = ROUNDS_WON + 8;
+    private static final int PLAYS = BLOCKS + 8;
+    private static final int WINS = PLAYS + 8 * CARDS.length;
+    private static final int RECORD = 256;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * The lifetime statistics of one player.
+     */
+    public static final class Stats {
+
+        private final String name;
+        private final long[] counters;
+
+        Stats(String name, long[] counters) {
+            this.name = name;
+            this.counters = counters;
+        }
+
+        /**
+         * Gets the case-folded name of the player.
+         *
+         * @return the name
+         */
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * Gets the number of games the player finished.
+         *
+         * @return the number of games
+         */
+        public long getGames() {
+            return counters[0];
+        }
+
+        /**
+         * Gets the number of games the player won.
+         *
+         * @return the number of games won
+         */
+        public long getGamesWon() {
+            return counters[1];
+        }
+
+        /**
+         * Gets the number of rounds the player finished.
+         *
+         * @return the number of rounds
+         */
+        public long getRounds() {
+            return counters[2];
+        }
+
+        /**
+         * Gets the number of rounds the player won.
+         *
+         * @return the number of rounds won
+         */
+        public long getRoundsWon() {
+            return counters[3];
+        }
+
+        /**
+         * Gets the number of blocks the player won.
+         *
+         * @return the number of blocks
+         */
+        public long getBlocks() {
+            return counters[4];
+        }
+
+        /**
+         * Gets the number of times the player played a card.
+         *
+         * @param card
+         *          the card
+         *
+         * @return the number of plays
+         */
+        public long getPlays(Card card) {
+            return counters[5 + card.ordinal()];
+        }
+
+        /**
+         * Gets the number of rounds the player won holding a card.
+         *
+         * @param card
+         *          the card
+         *
+         * @return the number of rounds won
+         */
+        public long getWins(Card card) {
+            return counters[5 + CARDS.length + card.ordinal()];
+        }
+
+        @Override
+        public String toString() {
+            return name + " blocks " + getBlocks() + " games " + getGamesWon() + "/" + getGames()
+                    + " rounds " + getRoundsWon() + "/" + getRounds();
+        }
+    }
+
+    /**
+     * The records of the players of the round a game thread is playing.
+     */
+    private static final class Round {
+
+        private PlayerList players;
+        private int[] records = new int[0];
+        private int[] blocks = new int[0];
+    }
+
+    private final FileChannel channel;
+    private final MappedByteBuffer map;
+    private final int capacity;
+    /**
+     * The number of index slots minus one; the number of slots is a power of two.
+     */
+    private final int indexMask;
+    private final int recordsAt;
+    private final ThreadLocal<Round> rounds;
+
+    /**
+     * The records on the leaderboard, most blocks first, replaced as a whole on every change.
+     */
+    private final AtomicReference<int[]> leaders;
+    private final int leaderboardSize;
+
+    /**
+     * Public constructor for a PlayerStats object, opening a statistics file or creating it.
+     *
+     * @param file
+     *          the statistics file
+     * @param capacity
+     *          the number of players the file holds, if it is created
+     * @param leaderboardSize
+     *          the number of players on the leaderboard
+     *
+     * @throws IOException
+     *          if the file cannot be opened or is not a statistics file
+     */
+    public PlayerStats(Path file, int capacity, int leaderboardSize) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE);
+        try {
+            boolean created = channel.size() == 0;
+            if (!created) {
+                MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER);
+                header.order(ByteOrder.LITTLE_ENDIAN);
+                if (header.getLong(0) != MAGIC) {
+                    throw new IOException(file + " is not a player statistics file");
+                }
+                capacity = header.getInt(CAPACITY_AT);
+            }
+            if (capacity <= 0 || capacity > MAX_CAPACITY) {
+                throw new IllegalArgumentException("Invalid capacity " + capacity);
+            }
+            this.capacity = capacity;
+            int slots = Integer.highestOneBit(capacity * 2 - 1) * 2;
+            this.indexMask = slots - 1;
+            this.recordsAt = HEADER + slots * 4;
+            long size = (long) recordsAt + (long) capacity * RECORD;
+            if (!created && channel.size() != size) {
+                throw new IOException(file + " has " + channel.size() + " bytes, expected " + size);
+            }
+            this.map = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            if (created) {
+                map.putLong(0, MAGIC).putInt(CAPACITY_AT, capacity).putInt(COUNT_AT, 0);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        this.rounds = ThreadLocal.withInitial(Round::new);
+        this.leaderboardSize = leaderboardSize;
+        this.leaders = new AtomicReference<>(new int[0]);
+        for (int r = 0; r < count(); r++) {
+            offer(r);
+        }
+    }
+
+    /**
+     * Gets the number of players in the file.
+     *
+     * @return the number of records used
+     */
+    public int count() {
+        return (int) INTS.getAcquire(map, COUNT_AT);
+    }
+
+    /**
+     * Gets the statistics of a player.
+     *
+     * @param name
+     *          the player name, in any case
+     *
+     * @return the statistics, null if the player has none
+     */
+    public Stats get(String name) {
+        byte[] key = fold(name);
+        int record = key == null ? -1 : find(key, hash(key));
+        return record < 0 ? null : stats(record);
+    }
+
+    /**
+     * Gets the players with the most blocks, most first.
+     *
+     * @return the statistics of the leaders
+     */
+    public List<Stats> leaderboard() {
+        int[] board = leaders.get();
+        List<Stats> list = new ArrayList<>(board.length);
+        for (int record : board) {
+            list.add(stats(record));
+        }
+        return list;
+    }
+
+    @Override
+    public void roundStarted(PlayerList players, Deck deck) {
+        Round round = rounds.get();
+        if (round.players != players || round.records.length != players.size()) {
+            round.players = players;
+            round.records = new int[players.size()];
+            round.blocks = new int[players.size()];
+            for (int seat = 0; seat < players.size(); seat++) {
+                round.records[seat] = record(players.getSeat(seat).getName());
+            }
+        }
+        for (int seat = 0; seat < players.size(); seat++) {
+            round.blocks[seat] = players.getSeat(seat).getBlockCount();
+        }
+    }
+
+    @Override
+    public void cardPlayed(Player user, Card card, Player target, Card guess) {
+        add(rounds.get().records[user.getSeat()], PLAYS + 8 * card.ordinal(), 1);
+    }
+
+    @Override
+    public void roundWon(Player winner, PlayerList players) {
+        Round round = rounds.get();
+        for (int seat = 0; seat < round.records.length; seat++) {
+            add(round.records[seat], ROUNDS, 1);
+        }
+        int record = round.records[winner.getSeat()];
+        add(record, ROUNDS_WON, 1);
+        add(record, BLOCKS, winner.getBlockCount() - round.blocks[winner.getSeat()]);
+        if (winner.hand().hasCards()) {
+            add(record, WINS + 8 * winner.hand().peek(0).ordinal(), 1);
+        }
+        if (record >= 0) {
+            offer(record);
+        }
+    }
+
+    @Override
+    public void gameWon(Player winner) {
+        Round round = rounds.get();
+        for (int seat = 0; seat < round.records.length; seat++) {
+            add(round.records[seat], GAMES, 1);
+        }
+        add(round.records[winner.getSeat()], GAMES_WON, 1);
+        round.players = null;
+    }
+
+    /**
+     * Writes the counters to the file.
+     */
+    public void flush() {
+        map.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        map.force();
+        channel.close();
+    }
+
+    /**
+     * Adds to a counter of a record.
+     *
+     * @param record
+     *          the record, ignored if negative
+     * @param field
+     *          the offset of the counter in the record
+     * @param delta
+     *          the amount to add
+     */
+    private void add(int record, int field, long delta) {
+        if (record >= 0) {
+            LONGS.getAndAdd(map, recordsAt + record * RECORD + field, delta);
+        }
+    }
+
+    private long counter(int record, int field) {
+        return (long) LONGS.getOpaque(map, recordsAt + record * RECORD + field);
+    }
+
+    private Stats stats(int record) {
+        long[] counters = new long[5 + 2 * CARDS.length];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = counter(record, GAMES + 8 * i);
+        }
+        int at = recordsAt + record * RECORD;
+        byte[] name = new byte[map.getShort(at)];
+        map.get(at + 2, name);
+        return new Stats(new String(name, StandardCharsets.UTF_8), counters);
+    }
+
+    /**
+     * Finds the record of a player name, claiming one if the name is new.
+     *
+     * @param name
+     *          the player name
+     *
+     * @return the record, -1 if the name is too long or the file is full
+     */
+    private int record(String name) {
+        byte[] key = fold(name);
+        if (key == null) {
+            return -1;
+        }
+        int hash = hash(key);
+        int record = find(key, hash);
+        if (record >= 0) {
+            return record;
+        }
+        synchronized (this) {
+            record = find(key, hash);
+            int count = count();
+            if (record >= 0 || count == capacity) {
+                return record;
+            }
+            int at = recordsAt + count * RECORD;
+            map.putShort(at, (short) key.length);
+            map.put(at + 2, key);
+            int slot = hash & indexMask;
+            while ((int) INTS.getAcquire(map, HEADER + slot * 4) != 0) {
+                slot = (slot + 1) & indexMask;
+            }
+            INTS.setRelease(map, HEADER + slot * 4, count + 1);
+            INTS.setRelease(map, COUNT_AT, count + 1);
+            return count;
+        }
+    }
+
+    /**
+     * Looks a folded name up in the index, without locking.
+     *
+     * @return the record, -1 if the name is not indexed
+     */
+    private int find(byte[] key, int hash) {
+        for (int slot = hash & indexMask; ; slot = (slot + 1) & indexMask) {
+            int entry = (int) INTS.getAcquire(map, HEADER + slot * 4);
+            if (entry == 0) {
+                return -1;
+            }
+            if (matches(entry - 1, key)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    private boolean matches(int record, byte[] key) {
+        int at = recordsAt + record * RECORD;
+        if (map.getShort(at) != key.length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (map.get(at + 2 + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Puts a record on the leaderboard if its blocks earn it a place, or moves it to its new place.
+     *
+     * @param record
+     *          the record whose blocks have changed
+     */
+    private void offer(int record) {
+        if (leaderboardSize == 0) {
+            return;
+        }
+        long blocks = counter(record, BLOCKS);
+        while (true) {
+            int[] board = leaders.get();
+            int[] next = place(board, record, blocks);
+            if (next == board || leaders.compareAndSet(board, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Builds a leaderboard with a record moved up to its place.
+     *
+     * @param board
+     *          the current leaderboard
+     * @param record
+     *          the record whose blocks have changed
+     * @param blocks
+     *          the blocks of the record
+     *
+     * @return the new leaderboard, the current one if the record does not change it
+     */
+    private int[] place(int[] board, int record, long blocks) {
+        int n = board.length;
+        int at = -1;
+        for (int i = 0; i < n; i++) {
+            if (board[i] == record) {
+                at = i;
+            }
+        }
+        if (at < 0) {
+            if (n == leaderboardSize && blocks <= counter(board[n - 1], BLOCKS)) {
+                return board;
+            }
+            board = Arrays.copyOf(board, Math.min(n + 1, leaderboardSize));
+            at = board.length - 1;
+        } else if (at == 0 || counter(board[at - 1], BLOCKS) >= blocks) {
+            return board;
+        } else {
+            board = board.clone();
+        }
+        while (at > 0 && counter(board[at - 1], BLOCKS) < blocks) {
+            board[at] = board[at - 1];
+            at--;
+        }
+        board[at] = record;
+        return board;
+    }
+
+    /**
+     * Folds a name as PlayerList does and encodes it.
+     *
+     * @return the folded name in UTF-8, null if it is too long
+     */
+    private static byte[] fold(String name) {
+        byte[] key = name.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8);
+        return key.length > MAX_NAME ? null : key;
+    }
+
+    private static int hash(byte[] key) {
+        int h = Arrays.hashCode(key) * 0x9E3779B9;
+        return h ^ h >>> 16;
+    }
+
+}
@@ -0,0 +1,422 @@
+package record;
+
+import ai.HeuristicAgent;
+import ai.RandomAgent;
+import controller.GameListener;
+import controller.Player;
+import controller.PlayerList;
+import model.Card;
+import model.Deck;
+import sim.AgentFactory;
+import sim.MonteCarloRunner;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams one training record per decision to a NumPy .npy file holding an unsigned byte
+ * array of shape (records, RECORD). A record is the state the deciding player could see
+ * when they chose, the action they took and the result of the round.
+ *
+ * Seats in a record are relative to the deciding player, who is seat 0. Record layout, one byte per value:
+ *  SEAT       the absolute seat of the player
+ *  SEATS      the number of seats
+ *  TURN       the number of the play within the round
+ *  HAND       the values of the two cards in hand, in hand order
+ *  USED       the used pile card counts, 8 per relative seat (by card ordinal), for 8 seats
+ *  PROTECTED  one bit per relative seat protected by a handmaiden
+ *  ALIVE      one bit per relative seat still in the round
+ *  DECK       the number of cards left in the deck
+ *  FORCED     1 if the Countess rule forced the play, 0 if not
+ *  CARD       the value of the played card
+ *  SLOT       the hand position of the played card
+ *  TARGET     the targeted relative seat, 255 if none
+ *  GUESS      the value of the guessed card, 0 if none
+ *  WINNER     the relative seat of the round winner
+ *  WON        1 if the player won the round, 0 if not
+ *  BLOCKS     the player's block count before the round
+ *
+ * Game threads fill records in a buffer of their own and hand full chunks to a writer thread
+ * through a bounded queue, so they only wait on the disk if it falls a whole queue behind.
+ * Chunks are recycled, so exporting allocates nothing per record. Games may run on any number of threads;
+ * close the exporter once they are all over. If the writer stops on an error, the games feeding the
+ * exporter fail with it on their next full chunk instead of waiting for a writer that is gone.
+ */
+public class TrainingExporter implements GameListener, Closeable {
+
+    public static final int SEAT = 0;
+    public static final int SEATS = 1;
+    public static final int TURN = 2;
+    public static final int HAND = 3;
+    public static final int USED = 5;
+    public static final int PROTECTED = 69;
+    public static final int ALIVE = 70;
+    public static final int DECK = 71;
+    public static final int FORCED = 72;
+    public static final int CARD = 73;
+    public static final int SLOT = 74;
+    public static final int TARGET = 75;
+    public static final int GUESS = 76;
+    public static final int WINNER = 77;
+    public static final int WON = 78;
+    public static final int BLOCKS = 79;
+    /**
+     * The length of a record.
+     */
+    public static final int RECORD = 80;
+
+    /**
+     * The length of the .npy header, rewritten with the record count on close.
+     */
+    private static final int HEADER = 128;
+    /**
+     * The number of records in a chunk.
+     */
+    private static final int CHUNK_RECORDS = 8192;
+    /**
+     * The number of full chunks that may wait for the writer.
+     */
+    private static final int QUEUE = 32;
+    /**
+     * How long to wait on a full queue before checking the writer is still running, in milliseconds.
+     */
+    private static final long POLL_MILLIS = 100;
+    /**
+     * The most plays a round can hold.
+     */
+    private static final int MAX_PLAYS = Deck.SIZE;
+
+    private static final Card[] CARDS = Card.values();
+
+    /**
+     * Queued to stop the writer thread.
+     */
+    private static final byte[] STOP = new byte[0];
+
+    /**
+     * The output file.
+     */
+    private final FileChannel channel;
+    /**
+     * Full chunks waiting for the writer.
+     */
+    private final BlockingQueue<byte[]> full;
+    /**
+     * Written chunks ready for reuse.
+     */
+    private final Queue<byte[]> free;
+    /**
+     * The recorder of every thread that fed the exporter.
+     */
+    private final Queue<Recorder> recorders;
+    private final ThreadLocal<Recorder> recorder;
+    private final Thread writer;
+    /**
+     * The number of records written.
+     */
+    private volatile long written;
+    /**
+     * The error that stopped the writer, null if none. Set before the writer thread ends early.
+     */
+    private volatile IOException error;
+
+    /**
+     * Public constructor for a TrainingExporter object. An existing file is replaced.
+     *
+     * @param file
+     *          the .npy file
+     *
+     * @throws IOException
+     *          if the file cannot be opened
+     */
+    public TrainingExporter(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        channel.position(HEADER);
+        this.full = new ArrayBlockingQueue<>(QUEUE);
+        this.free = new ConcurrentLinkedQueue<>();
+        this.recorders = new ConcurrentLinkedQueue<>();
+        this.recorder = ThreadLocal.withInitial(() -> {
+            Recorder r = new Recorder();
+            recorders.add(r);
+            return r;
+        });
+        this.writer = new Thread(this::write, "training-exporter");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void roundStarted(PlayerList players, Deck deck) {
+        Recorder r = recorder.get();
+        r.plays = 0;
+        r.deciding = null;
+        r.players = players;
+        r.deck = deck;
+    }
+
+    @Override
+    public void cardDrawn(Player player, Card card) {
+        Recorder r = recorder.get();
+        r.deciding = player;
+        byte[] rec = r.round[r.plays];
+        Arrays.fill(rec, (byte) 0);
+        PlayerList players = r.players;
+        int n = players.size();
+        int me = player.getSeat();
+        rec[SEAT] = (byte) me;
+        rec[SEATS] = (byte) n;
+        rec[TURN] = (byte) r.plays;
+        rec[HAND] = (byte) player.hand().peek(0).value();
+        rec[HAND + 1] = (byte) player.hand().peek(1).value();
+        int protectedSeats = 0;
+        int alive = 0;
+        for (int i = 0; i < n; i++) {
+            Player p = players.getSeat((me + i) % n);
+            for (Card c : CARDS) {
+                rec[USED + i * CARDS.length + c.ordinal()] = (byte) p.used().count(c);
+            }
+            protectedSeats |= p.isProtected() ? 1 << i : 0;
+            alive |= p.hand().hasCards() ? 1 << i : 0;
+        }
+        rec[PROTECTED] = (byte) protectedSeats;
+        rec[ALIVE] = (byte) alive;
+        rec[DECK] = (byte) r.deck.size();
+        rec[BLOCKS] = (byte) player.getBlockCount();
+    }
+
+    @Override
+    public void cardPlayed(Player user, Card card, Player target, Card guess) {
+        Recorder r = recorder.get();
+        if (r.deciding != user) {
+            return;
+        }
+        r.deciding = null;
+        byte[] rec = r.round[r.plays++];
+        Card kept = user.hand().hasCards() ? user.hand().peek(0) : null;
+        int n = rec[SEATS];
+        rec[FORCED] = (byte) (card == Card.COUNTESS && (kept == Card.KING || kept == Card.PRINCE) ? 1 : 0);
+        rec[CARD] = (byte) card.value();
+        rec[SLOT] = (byte) (rec[HAND] == card.value() ? 0 : 1);
+        rec[TARGET] = (byte) (target == null ? 255 : (target.getSeat() - user.getSeat() + n) % n);
+        rec[GUESS] = (byte) (guess == null ? 0 : guess.value());
+    }
+
+    @Override
+    public void roundWon(Player winner, PlayerList players) {
+        Recorder r = recorder.get();
+        for (int i = 0; i < r.plays; i++) {
+            byte[] rec = r.round[i];
+            int relative = (winner.getSeat() - rec[SEAT] + rec[SEATS]) % rec[SEATS];
+            rec[WINNER] = (byte) relative;
+            rec[WON] = (byte) (relative == 0 ? 1 : 0);
+            r.append(rec);
+        }
+        r.plays = 0;
+    }
+
+    /**
+     * Writes full chunks until stopped.
+     */
+    private void write() {
+        try {
+            while (true) {
+                byte[] chunk = full.take();
+                if (chunk == STOP) {
+                    return;
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(chunk);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                written += CHUNK_RECORDS;
+                free.add(chunk);
+            }
+        } catch (IOException e) {
+            error = e;
+        } catch (InterruptedException e) {
+            error = new InterruptedIOException("The writer was interrupted");
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Queues a chunk for the writer, waiting while the queue is full.
+     *
+     * @param chunk
+     *          the full chunk
+     *
+     * @throws InterruptedException
+     *          if interrupted while waiting
+     * @throws UncheckedIOException
+     *          if the writer has stopped on an error
+     */
+    private void queue(byte[] chunk) throws InterruptedException {
+        do {
+            if (error != null) {
+                throw new UncheckedIOException("The exporter's writer has failed", error);
+            }
+        } while (!full.offer(chunk, POLL_MILLIS, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Writes the records still held by the game threads, then the header, and closes the file.
+     * No game may still be feeding the exporter. If the writer has stopped on an error, the file is
+     * closed as it is and the error is thrown.
+     *
+     * @throws IOException
+     *          if the file cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            while (error == null && !full.offer(STOP, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                // the writer is still draining the queue
+            }
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            channel.close();
+            throw new IOException("Interrupted while closing the exporter", e);
+        }
+        if (error != null) {
+            channel.close();
+            throw error;
+        }
+        for (Recorder r : recorders) {
+            ByteBuffer buffer = ByteBuffer.wrap(r.chunk, 0, r.length * RECORD);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            written += r.length;
+            r.length = 0;
+        }
+        channel.write(ByteBuffer.wrap(header(written)), 0);
+        channel.close();
+    }
+
+    /**
+     * Gets the number of records written so far.
+     *
+     * @return the number of records
+     */
+    public long written() {
+        return this.written;
+    }
+
+    /**
+     * Builds the .npy header of a file of records.
+     *
+     * @param records
+     *          the number of records
+     *
+     * @return the header, HEADER bytes long
+     */
+    private static byte[] header(long records) {
+        StringBuilder dict = new StringBuilder("{'descr': '|u1', 'fortran_order': False, 'shape': (")
+                .append(records).append(", ").append(RECORD).append("), }");
+        while (dict.length() < HEADER - 11) {
+            dict.append(' ');
+        }
+        dict.append('\n');
+        byte[] header = new byte[HEADER];
+        byte[] magic = {(byte) 0x93, 'N', 'U', 'M', 'P', 'Y', 1, 0};
+        System.arraycopy(magic, 0, header, 0, magic.length);
+        header[8] = (byte) (HEADER - 10);
+        header[9] = (byte) ((HEADER - 10) >>> 8);
+        byte[] text = dict.toString().getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(text, 0, header, 10, text.length);
+        return header;
+    }
+
+    /**
+     * Exports the decisions of a batch of self-play games and prints the throughput.
+     *
+     * @param args
+     *          the .npy file, the number of games, the number of seats, the number of threads
+     *          and the agent, random or heuristic
+     *
+     * @throws IOException
+     *          if the file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        Path file = Paths.get(args.length > 0 ? args[0] : "decisions.npy");
+        long games = args.length > 1 ? Long.parseLong(args[1]) : 100000;
+        int seats = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        String agent = args.length > 4 ? args[4] : "random";
+        AgentFactory factory = agent.equals("heuristic") ? HeuristicAgent::new : RandomAgent::new;
+
+        MonteCarloRunner runner = new MonteCarloRunner(1);
+        for (int i = 0; i < seats; i++) {
+            runner.addSeat(agent, factory);
+        }
+        long start = System.nanoTime();
+        TrainingExporter exporter = new TrainingExporter(file);
+        runner.addListener(exporter);
+        try {
+            runner.run(games, threads);
+        } finally {
+            exporter.close();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long records = exporter.written();
+        System.out.printf("%d records in %.2f s, %.1f million records/min%n", records, seconds, records / seconds * 60 / 1e6);
+    }
+
+    /**
+     * The records of one game thread: the plays of its current round and its chunk being filled.
+     */
+    private final class Recorder {
+
+        private final byte[][] round = new byte[MAX_PLAYS][RECORD];
+        private int plays;
+        /**
+         * The player whose decision is being recorded, null between decisions.
+         */
+        private Player deciding;
+        private PlayerList players;
+        private Deck deck;
+        private byte[] chunk = new byte[CHUNK_RECORDS * RECORD];
+        private int length;
+
+        /**
+         * Appends a finished record, handing the chunk to the writer once it is full.
+         *
+         * @param rec
+         *          the record
+         *
+         * @throws UncheckedIOException
+         *          if the writer has stopped on an error
+         */
+        void append(byte[] rec) {
+            System.arraycopy(rec, 0, chunk, length * RECORD, RECORD);
+            if (++length == CHUNK_RECORDS) {
+                try {
+                    queue(chunk);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while exporting", e);
+                }
+                byte[] next = free.poll();
+                chunk = next != null ? next : new byte[CHUNK_RECORDS * RECORD];
+                length = 0;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,137 @@
+package server;
+
+import ai.PolicyCache;
+import metrics.EngineMetrics;
+import record.PlayerStats;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The open tables of a server. This is the only state the tables share.
+ */
+public class Lobby {
+
+    /**
+     * The number of decisions the computer players remember.
+     */
+    private static final int POLICY_CACHE_SIZE = 1 << 16;
+
+    /**
+     * The tables by name.
+     */
+    private final ConcurrentHashMap<String, Table> tables;
+    /**
+     * The metrics fed by every table.
+     */
+    private final EngineMetrics metrics;
+    /**
+     * The decisions of the computer players of every table.
+     */
+    private final PolicyCache policyCache;
+    /**
+     * The lifetime statistics of the players of every table, null if they are not kept.
+     */
+    private volatile PlayerStats stats;
+
+    /**
+     * Public constructor for a Lobby object.
+     */
+    public Lobby() {
+        this.tables = new ConcurrentHashMap<>();
+        this.metrics = new EngineMetrics();
+        this.policyCache = new PolicyCache(POLICY_CACHE_SIZE);
+    }
+
+    /**
+     * Gets the metrics fed by every table.
+     *
+     * @return the metrics
+     */
+    public EngineMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * Gets the cache of decisions shared by the computer players of every table.
+     *
+     * @return the policy cache
+     */
+    public PolicyCache getPolicyCache() {
+        return this.policyCache;
+    }
+
+    /**
+     * Keeps the lifetime statistics of the players of the tables started from now on.
+     *
+     * @param stats
+     *          the statistics, null to stop keeping them
+     */
+    public void setStats(PlayerStats stats) {
+        this.stats = stats;
+    }
+
+    /**
+     * Gets the lifetime statistics of the players.
+     *
+     * @return the statistics, null if they are not kept
+     */
+    public PlayerStats getStats() {
+        return this.stats;
+    }
+
+    /**
+     * Opens a new table.
+     *
+     * @param name
+     *          the table name
+     *
+     * @return the new table, null if a table with that name is already open
+     */
+    public Table create(String name) {
+        Table table = new Table(name, this);
+        return tables.putIfAbsent(name, table) == null ? table : null;
+    }
+
+    /**
+     * Gets an open table.
+     *
+     * @param name
+     *          the table name
+     *
+     * @return the table, null if there is no such table
+     */
+    public Table get(String name) {
+        return tables.get(name);
+    }
+
+    /**
+     * Closes a table.
+     *
+     * @param table
+     *          the table to remove
+     */
+    void remove(Table table) {
+        tables.remove(table.getName(), table);
+    }
+
+    /**
+     * Gets the names of the open tables.
+     *
+     * @return the table names
+     */
+    public List<String> names() {
+        return new ArrayList<>(tables.keySet());
+    }
+
+    /**
+     * Gets the number of open tables.
+     *
+     * @return the number of tables
+     */
+    public int size() {
+        return tables.size();
+    }
+
+}
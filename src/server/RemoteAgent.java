@@ -0,0 +1,149 @@
+package server;
+
+import controller.Agent;
+import controller.Player;
+import controller.PlayerList;
+import model.Card;
+import model.Deck;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Agent for a player connected to the server. Every decision sends a prompt to the
+ * player's session and parks the table thread until the answer arrives.
+ * An answer is only taken for the prompt waiting for it, so answers sent ahead of time
+ * or for another prompt are refused rather than piling up.
+ */
+class RemoteAgent implements Agent {
+
+    /**
+     * The prompt for a card position.
+     */
+    static final String CARD = "card";
+    /**
+     * The prompt for a target name.
+     */
+    static final String TARGET = "target";
+    /**
+     * The prompt for a guessed card.
+     */
+    static final String GUESS = "guess";
+
+    /**
+     * Marker put in the queue when the player disconnects.
+     */
+    private static final String LEFT = new String("left");
+
+    /**
+     * The session of the player.
+     */
+    private final Session session;
+    /**
+     * The prompt waiting for an answer, null if none.
+     */
+    private final AtomicReference<String> pending;
+    /**
+     * The answer to the last prompt and the LEFT marker; it never holds more than one of each.
+     */
+    private final BlockingQueue<String> answers;
+
+    /**
+     * Constructor for a RemoteAgent object.
+     *
+     * @param session
+     *          the session of the player
+     */
+    RemoteAgent(Session session) {
+        this.session = session;
+        this.pending = new AtomicReference<>();
+        this.answers = new ArrayBlockingQueue<>(2);
+    }
+
+    /**
+     * Hands over an answer received from the player.
+     *
+     * @param prompt
+     *          the prompt answered, CARD, TARGET or GUESS
+     * @param answer
+     *          the answer
+     *
+     * @return true if the prompt was waiting for an answer, false if not
+     */
+    boolean answer(String prompt, String answer) {
+        if (!pending.compareAndSet(prompt, null)) {
+            return false;
+        }
+        answers.offer(answer);
+        return true;
+    }
+
+    /**
+     * Wakes the table thread up when the player has disconnected.
+     */
+    void leave() {
+        answers.offer(LEFT);
+    }
+
+    @Override
+    public int chooseCard(Player user, PlayerList players, Deck deck) {
+        session.send("HAND " + user.hand().peek(0).getName() + " " + user.hand().peek(1).getName());
+        while (true) {
+            String answer = ask(CARD, user);
+            if (answer.equals("0") || answer.equals("1")) {
+                return Integer.parseInt(answer);
+            }
+            session.send("ERROR Please enter a valid card position");
+        }
+    }
+
+    @Override
+    public Player chooseOpponent(Player user, Card card, PlayerList players) {
+        while (true) {
+            Player opponent = players.getPlayer(ask(TARGET, user));
+            if (players.isValidTarget(user, opponent)) {
+                return opponent;
+            }
+            session.send("ERROR This player cannot be targeted");
+        }
+    }
+
+    @Override
+    public Card chooseGuess(Player user, Player opponent, PlayerList players) {
+        while (true) {
+            Card guess = Card.forName(ask(GUESS, user));
+            if (guess != null && guess != Card.GUARD) {
+                return guess;
+            }
+            session.send("ERROR Invalid card name");
+        }
+    }
+
+    /**
+     * Prompts the player and waits for their answer.
+     *
+     * @param prompt
+     *          the prompt, CARD, TARGET or GUESS
+     * @param user
+     *          the player
+     *
+     * @return the answer
+     */
+    private String ask(String prompt, Player user) {
+        pending.set(prompt);
+        session.send("PROMPT " + prompt);
+        String answer;
+        try {
+            answer = answers.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Table interrupted");
+        }
+        if (answer == LEFT) {
+            throw new IllegalStateException(user.getName() + " left the table");
+        }
+        return answer;
+    }
+
+}
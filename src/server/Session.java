@@ -0,0 +1,258 @@
+package server;
+
+import record.PlayerStats;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One client connection, served on its own virtual thread.
+ *
+ * Commands, one per line:
+ *  TABLES                  lists the open tables
+ *  CREATE table            opens a table
+ *  JOIN table name         sits down at a table
+ *  BOT name                seats a computer player at the joined table
+ *  WATCH table             follows the public events of a table as a spectator
+ *  STATS name              shows the lifetime statistics of a player
+ *  LEADERS                 lists the players with the most blocks
+ *  START                   starts the game at the joined table
+ *  PLAY 0|1                answers a card prompt
+ *  TARGET name             answers a target prompt, the name being the rest of the line
+ *  GUESS card              answers a guess prompt
+ *  QUIT                    closes the connection
+ * Replies start with OK or ERROR; game output starts with EVENT, HAND or PROMPT.
+ * An answer is only replied to with an ERROR, when no prompt of its kind is waiting.
+ */
+class Session implements Runnable {
+
+    /**
+     * The client socket.
+     */
+    private final Socket socket;
+    /**
+     * The lobby of the server.
+     */
+    private final Lobby lobby;
+    /**
+     * Serializes writes from the session and table threads. A lock rather than
+     * synchronized, so a virtual thread blocked on a write does not pin its carrier.
+     */
+    private final ReentrantLock writeLock;
+    /**
+     * The output stream to the client.
+     */
+    private BufferedWriter out;
+    /**
+     * The raw output to the client, for bytes already encoded.
+     */
+    private WritableByteChannel channel;
+    /**
+     * The joined table, null if none.
+     */
+    private Table table;
+    /**
+     * The agent of the seated player, null if not seated.
+     */
+    private RemoteAgent agent;
+
+    /**
+     * Constructor for a Session object.
+     *
+     * @param socket
+     *          the client socket
+     * @param lobby
+     *          the lobby of the server
+     */
+    Session(Socket socket, Lobby lobby) {
+        this.socket = socket;
+        this.lobby = lobby;
+        this.writeLock = new ReentrantLock();
+    }
+
+    @Override
+    public void run() {
+        try (Socket s = socket) {
+            s.setTcpNoDelay(true);
+            out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8));
+            channel = Channels.newChannel(s.getOutputStream());
+            BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+            String line = in.readLine();
+            while (line != null && handle(line.trim())) {
+                line = in.readLine();
+            }
+        } catch (IOException e) {
+            // the client is gone; fall through to leave the table
+        } finally {
+            if (agent != null) {
+                agent.leave();
+            }
+            if (table != null) {
+                table.leave(this);
+            }
+        }
+    }
+
+    /**
+     * Handles one command.
+     *
+     * @param line
+     *          the command line
+     *
+     * @return false if the session should end, true if not
+     */
+    private boolean handle(String line) {
+        String[] parts = line.split("\\s+", 3);
+        String command = parts[0].toUpperCase();
+        if (command.equals("QUIT")) {
+            return false;
+        } else if (command.equals("TABLES")) {
+            send("OK " + String.join(" ", lobby.names()));
+        } else if (command.equals("CREATE") && parts.length == 2) {
+            send(lobby.create(parts[1]) != null ? "OK" : "ERROR Table already exists");
+        } else if (command.equals("JOIN") && parts.length == 3) {
+            join(parts[1], parts[2]);
+        } else if (command.equals("BOT") && parts.length == 2) {
+            if (table == null) {
+                send("ERROR Not seated");
+            } else {
+                send(table.addBot(parts[1]) ? "OK" : "ERROR Cannot add a player");
+            }
+        } else if (command.equals("WATCH") && parts.length == 2) {
+            Table t = lobby.get(parts[1]);
+            send(t != null && t.watch(this) ? "OK" : "ERROR No such table");
+        } else if (command.equals("STATS") && parts.length == 2) {
+            PlayerStats stats = lobby.getStats();
+            PlayerStats.Stats s = stats == null ? null : stats.get(parts[1]);
+            send(s != null ? "OK " + s : "ERROR No statistics for " + parts[1]);
+        } else if (command.equals("LEADERS")) {
+            PlayerStats stats = lobby.getStats();
+            if (stats == null) {
+                send("ERROR No statistics kept");
+            } else {
+                StringBuilder sb = new StringBuilder("OK");
+                for (PlayerStats.Stats s : stats.leaderboard()) {
+                    sb.append(' ').append(s.getName()).append(':').append(s.getBlocks());
+                }
+                send(sb.toString());
+            }
+        } else if (command.equals("START")) {
+            send(table != null && table.start() ? "OK" : "ERROR Table cannot start");
+        } else if (prompt(command) != null && parts.length > 1) {
+            if (agent == null) {
+                send("ERROR Not seated");
+            } else if (!agent.answer(prompt(command), line.substring(parts[0].length()).trim())) {
+                send("ERROR No " + prompt(command) + " prompt to answer");
+            }
+        } else {
+            send("ERROR Unknown command");
+        }
+        return true;
+    }
+
+    /**
+     * Gets the prompt a command answers.
+     *
+     * @param command
+     *          the command, in upper case
+     *
+     * @return the prompt, null if the command is not an answer
+     */
+    private static String prompt(String command) {
+        if (command.equals("PLAY")) {
+            return RemoteAgent.CARD;
+        } else if (command.equals("TARGET")) {
+            return RemoteAgent.TARGET;
+        } else if (command.equals("GUESS")) {
+            return RemoteAgent.GUESS;
+        }
+        return null;
+    }
+
+    /**
+     * Sits the client down at a table.
+     *
+     * @param tableName
+     *          the table name
+     * @param playerName
+     *          the player name, without spaces
+     */
+    private void join(String tableName, String playerName) {
+        Table t = lobby.get(tableName);
+        if (agent != null) {
+            send("ERROR Already seated");
+        } else if (t == null) {
+            send("ERROR No such table");
+        } else if (playerName.contains(" ")) {
+            send("ERROR Player names cannot contain spaces");
+        } else {
+            agent = t.join(playerName, this);
+            if (agent == null) {
+                send("ERROR Cannot join this table");
+            } else {
+                table = t;
+                send("OK");
+            }
+        }
+    }
+
+    /**
+     * Sends a line to the client. A failed write closes the connection.
+     *
+     * @param line
+     *          the line to send
+     */
+    void send(String line) {
+        writeLock.lock();
+        try {
+            out.write(line);
+            out.newLine();
+            out.flush();
+        } catch (IOException e) {
+            close();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Sends encoded lines to the client. A failed write closes the connection.
+     *
+     * @param data
+     *          the lines, which the call consumes
+     *
+     * @return true if the lines were sent, false if the connection failed
+     */
+    boolean send(ByteBuffer data) {
+        writeLock.lock();
+        try {
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+            return true;
+        } catch (IOException e) {
+            close();
+            return false;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void close() {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // already closing
+        }
+    }
+
+}
@@ -0,0 +1,196 @@
+package server;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Fans the public events of a table out to its spectators.
+ * Each event is encoded once into a read-only buffer and stored in a ring. Every spectator has a
+ * virtual thread of its own that follows the ring at its own pace and writes views of the shared
+ * buffers to its connection, so publishing an event never waits on a spectator. A spectator that
+ * falls a whole ring behind skips ahead to the oldest event still held and is told how many it missed;
+ * one whose connection fails is dropped.
+ * A table nobody watches costs next to nothing: the ring is only allocated for the first spectator,
+ * and events are not encoded while there are no spectators.
+ */
+class SpectatorHub {
+
+    /**
+     * The number of events the ring holds, a power of two.
+     */
+    private static final int CAPACITY = 1024;
+
+    /**
+     * The latest events, each in slot seq % CAPACITY, null until the first spectator subscribes.
+     */
+    private AtomicReferenceArray<Event> ring;
+    /**
+     * The spectators following the table.
+     */
+    private final CopyOnWriteArrayList<Spectator> spectators;
+    /**
+     * The number of events published.
+     */
+    private volatile long published;
+    /**
+     * True once no more events will be published.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Constructor for a SpectatorHub object.
+     */
+    SpectatorHub() {
+        this.spectators = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Publishes an event line to every spectator. Never blocks on a spectator.
+     *
+     * @param line
+     *          the line to send
+     */
+    void publish(String line) {
+        if (closed || spectators.isEmpty()) {
+            return;
+        }
+        ByteBuffer data = ByteBuffer.wrap((line + System.lineSeparator()).getBytes(StandardCharsets.UTF_8))
+                .asReadOnlyBuffer();
+        synchronized (this) {
+            long seq = published;
+            ring.set((int) seq & (CAPACITY - 1), new Event(seq, data));
+            published = seq + 1;
+        }
+        wakeAll();
+    }
+
+    /**
+     * Adds a spectator, which receives the events published from now on.
+     *
+     * @param session
+     *          the session of the spectator
+     *
+     * @return true if the spectator was added, false if the hub is closed
+     */
+    boolean subscribe(Session session) {
+        Spectator spectator;
+        synchronized (this) {
+            if (closed) {
+                return false;
+            }
+            if (ring == null) {
+                ring = new AtomicReferenceArray<>(CAPACITY);
+            }
+            spectator = new Spectator(session, published);
+            spectators.add(spectator);
+        }
+        Thread.ofVirtual().name("spectator").start(spectator);
+        return true;
+    }
+
+    /**
+     * Gets the number of spectators.
+     *
+     * @return the number of spectators
+     */
+    int size() {
+        return spectators.size();
+    }
+
+    /**
+     * Stops publishing. Spectators finish sending the events already published, then stop.
+     */
+    void close() {
+        closed = true;
+        wakeAll();
+    }
+
+    private void wakeAll() {
+        for (Spectator s : spectators) {
+            LockSupport.unpark(s.thread);
+        }
+    }
+
+    /**
+     * A published event. The sequence number tells a spectator whether the slot it reads has been reused.
+     */
+    private static final class Event {
+
+        private final long seq;
+        private final ByteBuffer data;
+
+        Event(long seq, ByteBuffer data) {
+            this.seq = seq;
+            this.data = data;
+        }
+    }
+
+    /**
+     * A spectator following the ring from its own thread.
+     */
+    private final class Spectator implements Runnable {
+
+        private final Session session;
+        /**
+         * The sequence number of the next event to send.
+         */
+        private long cursor;
+        /**
+         * The thread of the spectator, null until it starts. It is set before the spectator
+         * first reads the ring, so no event published after that is missed.
+         */
+        private volatile Thread thread;
+
+        Spectator(Session session, long cursor) {
+            this.session = session;
+            this.cursor = cursor;
+        }
+
+        @Override
+        public void run() {
+            thread = Thread.currentThread();
+            try {
+                while (true) {
+                    long head = published;
+                    if (cursor == head) {
+                        if (closed && head == published) {
+                            return;
+                        }
+                        LockSupport.park(this);
+                        continue;
+                    }
+                    Event e = ring.get((int) cursor & (CAPACITY - 1));
+                    if (head - cursor > CAPACITY || e == null || e.seq != cursor) {
+                        if (!skip()) {
+                            return;
+                        }
+                        continue;
+                    }
+                    if (!session.send(e.data.duplicate())) {
+                        return;
+                    }
+                    cursor++;
+                }
+            } finally {
+                spectators.remove(this);
+            }
+        }
+
+        /**
+         * Moves the cursor to the oldest event still in the ring and tells the spectator.
+         *
+         * @return false if the spectator's connection failed, true if not
+         */
+        private boolean skip() {
+            long oldest = Math.max(published - CAPACITY + 1, cursor);
+            long missed = oldest - cursor;
+            cursor = oldest;
+            return missed == 0 || session.send(ByteBuffer.wrap(("EVENT skipped " + missed + System.lineSeparator())
+                    .getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+}
@@ -0,0 +1,225 @@
+package server;
+
+import ai.MctsAgent;
+import controller.Game;
+import controller.GameListener;
+import controller.MulticastListener;
+import controller.Player;
+import controller.PlayerList;
+import metrics.TimedAgent;
+import model.Deck;
+import record.PlayerStats;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * A single game hosted by the server. Once started, the game runs on its own virtual thread,
+ * which parks while it waits for a player's answer.
+ */
+public class Table {
+
+    /**
+     * The time budget of each decision of a computer player, in milliseconds. Computer players search
+     * on their table's thread alone, so a busy server never has more searches running than tables
+     * taking a turn, and they leave the shared pools to the rest of the server.
+     */
+    private static final long BOT_MILLIS = 20;
+
+    /**
+     * The table name.
+     */
+    private final String name;
+    /**
+     * The lobby the table is listed in.
+     */
+    private final Lobby lobby;
+    /**
+     * The players at the table.
+     */
+    private final PlayerList players;
+    /**
+     * The sessions of the seated players, by seat, null for computer players.
+     */
+    private final List<Session> sessions;
+    /**
+     * The spectators watching the table.
+     */
+    private final SpectatorHub spectators;
+    /**
+     * True once the game has started.
+     */
+    private boolean started;
+    /**
+     * True once a player has left before the game started.
+     */
+    private boolean closed;
+
+    /**
+     * Constructor for a Table object.
+     *
+     * @param name
+     *          the table name
+     * @param lobby
+     *          the lobby the table is listed in
+     */
+    Table(String name, Lobby lobby) {
+        this.name = name;
+        this.lobby = lobby;
+        this.players = new PlayerList();
+        this.sessions = new ArrayList<>();
+        this.spectators = new SpectatorHub();
+    }
+
+    /**
+     * Gets the table name.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Seats a new player.
+     *
+     * @param playerName
+     *          the player name
+     * @param session
+     *          the session of the player
+     *
+     * @return the agent answering for the player, null if the player cannot sit down
+     */
+    RemoteAgent join(String playerName, Session session) {
+        RemoteAgent agent = new RemoteAgent(session);
+        synchronized (this) {
+            if (started || closed || !players.addPlayer(playerName, agent)) {
+                return null;
+            }
+            sessions.add(session);
+        }
+        broadcast("EVENT join " + playerName);
+        return agent;
+    }
+
+    /**
+     * Seats a computer player, which searches its moves with a MctsAgent sharing the lobby's policy cache.
+     *
+     * @param playerName
+     *          the player name
+     *
+     * @return true if the player sat down, false if not
+     */
+    boolean addBot(String playerName) {
+        MctsAgent bot = new MctsAgent(new SplittableRandom(), BOT_MILLIS, 1);
+        bot.setCache(lobby.getPolicyCache());
+        TimedAgent agent = new TimedAgent(bot, lobby.getMetrics());
+        synchronized (this) {
+            if (started || closed || !players.addPlayer(playerName, agent)) {
+                return false;
+            }
+            sessions.add(null);
+        }
+        broadcast("EVENT join " + playerName);
+        return true;
+    }
+
+    /**
+     * Adds a spectator, who is sent every public event of the table from now on.
+     *
+     * @param session
+     *          the session of the spectator
+     *
+     * @return true if the spectator was added, false if the table is over
+     */
+    boolean watch(Session session) {
+        return spectators.subscribe(session);
+    }
+
+    /**
+     * Starts the game on a new virtual thread.
+     *
+     * @return true if the game was started, false if it already was, was closed or has too few players
+     */
+    synchronized boolean start() {
+        if (started || closed || players.size() < 2) {
+            return false;
+        }
+        started = true;
+        Thread.ofVirtual().name("table-" + name).start(this::run);
+        return true;
+    }
+
+    /**
+     * Plays the game and closes the table when it is over or a player has left.
+     */
+    private void run() {
+        try {
+            PlayerStats stats = lobby.getStats();
+            GameListener listener = stats == null
+                    ? new MulticastListener(new TableListener(this), lobby.getMetrics())
+                    : new MulticastListener(new TableListener(this), lobby.getMetrics(), stats);
+            new Game(players, new Deck(new SplittableRandom()), listener).start();
+        } catch (IllegalStateException e) {
+            broadcast("EVENT aborted " + e.getMessage());
+        } finally {
+            lobby.remove(this);
+            spectators.close();
+        }
+    }
+
+    /**
+     * Called when a seated player disconnects. A table that has not started yet is closed.
+     *
+     * @param session
+     *          the session that ended
+     */
+    void leave(Session session) {
+        synchronized (this) {
+            if (started) {
+                return;
+            }
+            closed = true;
+            sessions.remove(session);
+        }
+        lobby.remove(this);
+        broadcast("EVENT closed");
+        spectators.close();
+    }
+
+    /**
+     * Sends a line to every seated player and spectator.
+     *
+     * @param line
+     *          the line to send
+     */
+    void broadcast(String line) {
+        spectators.publish(line);
+        List<Session> targets;
+        synchronized (this) {
+            targets = new ArrayList<>(sessions);
+        }
+        for (Session s : targets) {
+            if (s != null) {
+                s.send(line);
+            }
+        }
+    }
+
+    /**
+     * Sends a line to a single player.
+     *
+     * @param player
+     *          the player
+     * @param line
+     *          the line to send
+     */
+    void sendTo(Player player, String line) {
+        Session session = sessions.get(player.getSeat());
+        if (session != null) {
+            session.send(line);
+        }
+    }
+
+}
@@ -0,0 +1,89 @@
+package server;
+
+import controller.GameListener;
+import controller.Player;
+import controller.PlayerList;
+import model.Card;
+import model.Deck;
+
+/**
+ * Sends the events of a table's game to its players.
+ * Public events go to every player; cards only one player may see go to that player alone.
+ */
+class TableListener implements GameListener {
+
+    /**
+     * The table of the game.
+     */
+    private final Table table;
+
+    /**
+     * Constructor for a TableListener object.
+     *
+     * @param table
+     *          the table of the game
+     */
+    TableListener(Table table) {
+        this.table = table;
+    }
+
+    @Override
+    public void roundStarted(PlayerList players, Deck deck) {
+        table.broadcast("EVENT round");
+        for (int i = 0; i < players.size(); i++) {
+            Player p = players.getSeat(i);
+            table.sendTo(p, "HAND " + p.hand().peek(0).getName());
+        }
+    }
+
+    @Override
+    public void turnStarted(Player player, PlayerList players) {
+        table.broadcast("EVENT turn " + player.getName());
+    }
+
+    @Override
+    public void cardPlayed(Player user, Card card, Player target, Card guess) {
+        StringBuilder sb = new StringBuilder("EVENT play ").append(user.getName()).append(' ').append(card.getName());
+        if (target != null) {
+            sb.append(' ').append(target.getName());
+        }
+        if (guess != null) {
+            sb.append(' ').append(guess.getName());
+        }
+        table.broadcast(sb.toString());
+    }
+
+    @Override
+    public void guardGuessed(Player user, Player opponent, Card guess, boolean correct) {
+        table.broadcast("EVENT guard " + opponent.getName() + (correct ? " hit" : " miss"));
+    }
+
+    @Override
+    public void priestRevealed(Player user, Player opponent, Card card) {
+        table.sendTo(user, "EVENT priest " + opponent.getName() + " " + card.getName());
+    }
+
+    @Override
+    public void baronCompared(Player user, Player opponent, Player loser, boolean tied) {
+        table.broadcast("EVENT baron " + loser.getName() + " " + loser.hand().peek(0).getName());
+    }
+
+    @Override
+    public void princeDiscarded(Player opponent, Card discarded, Card drawn) {
+        table.broadcast("EVENT prince " + opponent.getName() + " " + discarded.getName());
+        if (drawn != null) {
+            table.sendTo(opponent, "HAND " + drawn.getName());
+        }
+    }
+
+    @Override
+    public void roundWon(Player winner, PlayerList players) {
+        table.broadcast("EVENT roundwon " + winner.getName() + " " + winner.getBlockCount());
+    }
+
+    @Override
+    public void gameWon(Player winner) {
+        table.broadcast("EVENT gamewon " + winner.getName());
+    }
+
+}
@@ -0,0 +1,122 @@
+package server;
+
+import record.PlayerStats;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Paths;
+
+/**
+ * Hosts many Love Letter tables in one JVM over a local socket.
+ * Every connection and every running table has its own virtual thread, so a table waiting
+ * for a move costs a parked continuation rather than a platform thread.
+ */
+public class TableServer {
+
+    /**
+     * The default port.
+     */
+    public static final int DEFAULT_PORT = 7777;
+    /**
+     * The number of players a new statistics file holds.
+     */
+    private static final int STATS_CAPACITY = 1 << 16;
+    /**
+     * The number of players on the leaderboard.
+     */
+    private static final int LEADERBOARD_SIZE = 10;
+
+    /**
+     * The listening socket.
+     */
+    private final ServerSocket server;
+    /**
+     * The open tables.
+     */
+    private final Lobby lobby;
+
+    /**
+     * Public constructor for a TableServer object listening on the loopback address.
+     *
+     * @param port
+     *          the port, 0 for any free port
+     *
+     * @throws IOException
+     *          if the socket cannot be opened
+     */
+    public TableServer(int port) throws IOException {
+        this.server = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+        this.lobby = new Lobby();
+    }
+
+    /**
+     * Gets the port the server listens on.
+     *
+     * @return the port
+     */
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * Gets the lobby of the server.
+     *
+     * @return the lobby
+     */
+    public Lobby getLobby() {
+        return this.lobby;
+    }
+
+    /**
+     * Accepts connections until the server is closed.
+     */
+    public void serve() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                Thread.ofVirtual().name("session-" + socket.getPort()).start(new Session(socket, lobby));
+            } catch (IOException e) {
+                if (!server.isClosed()) {
+                    System.err.println("Could not accept a connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops accepting connections.
+     *
+     * @throws IOException
+     *          if the socket cannot be closed
+     */
+    public void close() throws IOException {
+        server.close();
+    }
+
+    /**
+     * Runs a server, with its metrics and policy cache registered over JMX.
+     *
+     * @param args
+     *          the port, optionally the seconds between metric dumps (0 for none),
+     *          and optionally the file of the players' lifetime statistics
+     *
+     * @throws IOException
+     *          if the socket cannot be opened
+     */
+    public static void main(String[] args) throws IOException {
+        TableServer server = new TableServer(args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT);
+        server.getLobby().getMetrics().register("TableServer");
+        server.getLobby().getPolicyCache().register("TableServer");
+        if (args.length > 2) {
+            server.getLobby().setStats(new PlayerStats(Paths.get(args[2]), STATS_CAPACITY, LEADERBOARD_SIZE));
+        }
+        if (args.length > 1 && Long.parseLong(args[1]) > 0) {
+            server.getLobby().getMetrics().startDump(System.out, Long.parseLong(args[1]) * 1000);
+        }
+        System.out.println("Listening on port " + server.getPort());
+        server.serve();
+    }
+
+}
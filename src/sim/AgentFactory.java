@@ -0,0 +1,22 @@
+package sim;
+
+import controller.Agent;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Creates a fresh agent for every simulated game, so that no agent state is shared between games.
+ */
+public interface AgentFactory {
+
+    /**
+     * Creates an agent.
+     *
+     * @param random
+     *          the source of randomness the agent must use for all of its choices
+     *
+     * @return the new agent
+     */
+    Agent create(RandomGenerator random);
+
+}
@@ -0,0 +1,685 @@
+package sim;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+import model.Card;
+
+import java.util.Arrays;
+
+/**
+ * Plays thousands of independent rounds together, one turn of every round per step, between players
+ * choosing their moves at random. The rounds live in struct-of-arrays primitive arrays indexed by lane,
+ * and each step runs as a series of tight loops: one over all lanes choosing the moves and queueing each
+ * lane under the card it played, one per card effect over the lanes of its queue, and one detecting winners
+ * and starting the next turns. All but the handmaiden, prince, king and princess loops run on the Vector
+ * API (jdk.incubator.vector, so the tree is compiled and run with --add-modules jdk.incubator.vector): a
+ * vector of lanes is loaded straight from the lane arrays or gathered from its queue through index maps,
+ * settled with lane-wise compares and blends instead of branches, and scattered back. A vector never holds
+ * a lane twice, so its scattered lanes never collide.
+ *
+ * Each loop body is a method of its own working on a single vector, and vectors never live across a loop
+ * or a call: C2 only keeps a vector in a register when it sees all of its uses, and boxes it otherwise.
+ *
+ * The rules are those of State, and a lane loaded from a State plays it out exactly as State.apply would
+ * with the same moves. A player chooses a card slot, a target and a guess uniformly at random from one
+ * draw of the lane's generator, the Countess rule aside.
+ */
+public final class LockstepSimulator {
+
+    /**
+     * The largest number of seats.
+     */
+    public static final int MAX_SEATS = 8;
+
+    private static final int DECK_SIZE = State.DECK_SIZE;
+    private static final Card[] CARDS = Card.values();
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    /**
+     * Int vectors with one lane per lane of LONGS, so that a vector of lanes draws from a vector of
+     * their generators.
+     */
+    private static final VectorSpecies<Integer> INTS =
+            VectorSpecies.of(int.class, VectorShape.forBitSize(LONGS.vectorBitSize() / 2));
+    /**
+     * The card values of a full deck, in Card order.
+     */
+    private static final int[] FULL_DECK = new int[DECK_SIZE];
+    /**
+     * NTH_SEAT[targets << 3 | k] is the seat of the k-th set bit of a mask of targets, -1 for no target.
+     */
+    private static final int[] NTH_SEAT = new int[(1 << MAX_SEATS) << 3];
+    /**
+     * LOWEST_SEAT[mask] is the lowest seat of a non-empty mask of seats.
+     */
+    private static final int[] LOWEST_SEAT = new int[1 << MAX_SEATS];
+    /**
+     * One bit per card value that is played on a target.
+     */
+    private static final int TARGETED;
+
+    static {
+        int targeted = 0;
+        int n = 0;
+        for (Card c : CARDS) {
+            targeted |= c.isTargeted() ? 1 << c.value() : 0;
+            for (int i = 0; i < c.copies(); i++) {
+                FULL_DECK[n++] = c.value();
+            }
+        }
+        TARGETED = targeted;
+        for (int targets = 0; targets < 1 << MAX_SEATS; targets++) {
+            LOWEST_SEAT[targets] = Integer.numberOfTrailingZeros(targets | 1 << MAX_SEATS);
+            int rest = targets;
+            for (int k = 0; k < 8; k++) {
+                NTH_SEAT[targets << 3 | k] = rest == 0 ? -1 : Integer.numberOfTrailingZeros(rest);
+                rest &= rest - 1;
+            }
+        }
+    }
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+    /**
+     * The winner of a lane holding no round.
+     */
+    private static final int IDLE = -2;
+
+    private final int lanes;
+    private final int seats;
+
+    /**
+     * The deck of each lane, DECK_SIZE card values per lane, dealt from the front.
+     */
+    private final int[] deck;
+    /**
+     * The position of the next card dealt from each lane's deck.
+     */
+    private final int[] deckPos;
+    /**
+     * The card each seat holds, seats values per lane, 0 for a seat that is out.
+     */
+    private final int[] hand;
+    /**
+     * The card the player to move has drawn.
+     */
+    private final int[] drawn;
+    /**
+     * The sum of each seat's used pile, seats values per lane.
+     */
+    private final int[] usedSum;
+    /**
+     * The seat to move in each lane.
+     */
+    private final int[] current;
+    /**
+     * One bit per seat protected by a handmaiden.
+     */
+    private final int[] protectedSeats;
+    /**
+     * One bit per seat still in the round.
+     */
+    private final int[] alive;
+    /**
+     * The winning seat of each lane, -1 while the round goes on, IDLE for a lane holding no round.
+     */
+    private final int[] winner;
+    /**
+     * 1 where the round was won by comparing used piles.
+     */
+    private final int[] compared;
+    /**
+     * The generator state of each lane.
+     */
+    private final long[] rng;
+
+    /**
+     * The move chosen in each lane this step: the card kept, the target seat (-1 for none) and the guess.
+     */
+    private final int[] kept;
+    private final int[] target;
+    private final int[] guess;
+    /**
+     * The value of the card each lane played this step, 0 for a card without effect, -1 for a lane
+     * that did not play.
+     */
+    private final int[] played;
+    /**
+     * The lanes that played this step, queued by the value of the card played; queue 0 holds the
+     * lanes whose card had no effect. Queue q starts at q * stride, and each has a vector's worth of
+     * room past its end, so that a vector of lanes is queued with a whole store and the index map of
+     * the last vector of a queue can always be read.
+     */
+    private final int[] queue;
+    private final int stride;
+    private final int[] queued;
+    /**
+     * The lanes whose round ended this step, with a vector's worth of room past the end.
+     */
+    private final int[] ended;
+    private int ending;
+    /**
+     * The index maps of the gathers and scatters under way, one index per vector lane: into the seat
+     * arrays of the movers or the lanes, and of the targets. An index map is read in full, so the lanes
+     * left out of a vector's mask must index 0.
+     */
+    private final int[] index;
+    private final int[] targetIndex;
+
+    /**
+     * Public constructor for a LockstepSimulator object. Every lane starts without a round.
+     *
+     * @param lanes
+     *          the number of rounds played together
+     * @param seats
+     *          the number of seats of every round (2 to MAX_SEATS)
+     */
+    public LockstepSimulator(int lanes, int seats) {
+        if (seats < 2 || seats > MAX_SEATS || lanes <= 0) {
+            throw new IllegalArgumentException("Invalid lanes or seats");
+        }
+        this.lanes = lanes;
+        this.seats = seats;
+        this.deck = new int[lanes * DECK_SIZE];
+        this.deckPos = new int[lanes];
+        this.hand = new int[lanes * seats];
+        this.drawn = new int[lanes];
+        this.usedSum = new int[lanes * seats];
+        this.current = new int[lanes];
+        this.protectedSeats = new int[lanes];
+        this.alive = new int[lanes];
+        this.winner = new int[lanes];
+        this.compared = new int[lanes];
+        this.rng = new long[lanes];
+        this.kept = new int[lanes];
+        this.target = new int[lanes];
+        this.guess = new int[lanes];
+        this.played = new int[lanes];
+        this.stride = lanes + INTS.length();
+        this.queue = new int[(CARDS.length + 1) * stride];
+        this.queued = new int[CARDS.length + 1];
+        this.ended = new int[lanes + INTS.length()];
+        this.index = new int[INTS.length()];
+        this.targetIndex = new int[INTS.length()];
+        Arrays.fill(winner, IDLE);
+    }
+
+    /**
+     * Gets the number of lanes.
+     *
+     * @return the number of rounds played together
+     */
+    public int lanes() {
+        return this.lanes;
+    }
+
+    /**
+     * Deals a new round in a lane from a freshly shuffled deck. Seat 0 is dealt first and moves first.
+     *
+     * @param lane
+     *          the lane
+     * @param seed
+     *          the seed of the lane's shuffle and moves
+     */
+    public void deal(int lane, long seed) {
+        rng[lane] = seed;
+        int base = lane * DECK_SIZE;
+        System.arraycopy(FULL_DECK, 0, deck, base, DECK_SIZE);
+        long r = 0;
+        for (int i = DECK_SIZE - 1; i > 0; i--) {
+            r = (i & 1) != 0 ? next(lane) : r << 32;
+            int j = (int) (((r >>> 32) * (i + 1)) >>> 32);
+            int t = deck[base + i];
+            deck[base + i] = deck[base + j];
+            deck[base + j] = t;
+        }
+        int h = lane * seats;
+        for (int s = 0; s < seats; s++) {
+            hand[h + s] = deck[base + s];
+            usedSum[h + s] = 0;
+        }
+        deckPos[lane] = seats + 1;
+        drawn[lane] = deck[base + seats];
+        current[lane] = 0;
+        protectedSeats[lane] = 0;
+        alive[lane] = (1 << seats) - 1;
+        winner[lane] = -1;
+        compared[lane] = 0;
+    }
+
+    /**
+     * Loads a round in progress into a lane, to be played out at random.
+     *
+     * @param lane
+     *          the lane
+     * @param s
+     *          the state, with the same number of seats as the simulator, at a player's decision
+     * @param seed
+     *          the seed of the lane's moves
+     */
+    public void load(int lane, State s, long seed) {
+        if (s.seats() != seats) {
+            throw new IllegalArgumentException("The state has " + s.seats() + " seats");
+        }
+        rng[lane] = seed;
+        int base = lane * DECK_SIZE;
+        int size = s.deckSize();
+        for (int i = 0; i < size; i++) {
+            deck[base + DECK_SIZE - size + i] = s.deckCard(i);
+        }
+        deckPos[lane] = DECK_SIZE - size;
+        int h = lane * seats;
+        int mask = 0;
+        int prot = 0;
+        for (int seat = 0; seat < seats; seat++) {
+            hand[h + seat] = s.hand(seat, 0);
+            usedSum[h + seat] = s.usedValue(seat);
+            mask |= s.isAlive(seat) ? 1 << seat : 0;
+            prot |= s.isProtected(seat) ? 1 << seat : 0;
+        }
+        current[lane] = s.current();
+        drawn[lane] = s.hand(s.current(), 1);
+        protectedSeats[lane] = prot;
+        alive[lane] = mask;
+        winner[lane] = s.winner();
+        compared[lane] = s.wonOnUsedPiles() ? 1 : 0;
+    }
+
+    /**
+     * Gets the winner of a lane's round.
+     *
+     * @param lane
+     *          the lane
+     *
+     * @return the winning seat, -1 if the round is not over, -2 if the lane holds no round
+     */
+    public int winner(int lane) {
+        return this.winner[lane];
+    }
+
+    /**
+     * Checks to see if a lane's round was decided by comparing used piles.
+     *
+     * @param lane
+     *          the lane
+     *
+     * @return true if the used piles decided the round, false if not
+     */
+    public boolean wonOnUsedPiles(int lane) {
+        return compared[lane] != 0;
+    }
+
+    /**
+     * Plays one turn in every lane whose round is not over.
+     *
+     * @return the number of rounds still going on
+     */
+    public int step() {
+        choose();
+        guards();
+        barons();
+        effects();
+        return endTurns();
+    }
+
+    /**
+     * Plays every lane's round to the end.
+     */
+    public void playOut() {
+        while (step() > 0) {
+            // every step plays a turn in each round still going on
+        }
+    }
+
+    /**
+     * Plays rounds in every lane, dealing a new one into each lane as soon as its round is over.
+     *
+     * @param rounds
+     *          the number of rounds to play
+     * @param seed
+     *          the seed all round seeds are derived from
+     *
+     * @return the number of rounds won by each seat
+     */
+    public long[] simulate(long rounds, long seed) {
+        long[] wins = new long[seats];
+        long dealt = 0;
+        for (int lane = 0; lane < lanes; lane++) {
+            if (dealt < rounds) {
+                deal(lane, mix(seed + ++dealt * GOLDEN));
+            } else {
+                winner[lane] = IDLE;
+            }
+        }
+        long finished = 0;
+        while (finished < rounds) {
+            step();
+            for (int i = 0; i < ending; i++) {
+                int lane = ended[i];
+                wins[winner[lane]]++;
+                finished++;
+                if (dealt < rounds) {
+                    deal(lane, mix(seed + ++dealt * GOLDEN));
+                } else {
+                    winner[lane] = IDLE;
+                }
+            }
+        }
+        return wins;
+    }
+
+    /**
+     * Chooses the move of every lane still going on, plays the card into its player's used pile and
+     * keeps the other, and queues the lane under the card played. A player holding the Countess with
+     * the King or Prince plays the Countess; otherwise the slot, the target among the valid ones and
+     * the guess are taken from one draw of the lane's generator.
+     */
+    private void choose() {
+        Arrays.fill(queued, 0);
+        for (int i = 0; i < lanes; i += INTS.length()) {
+            choose(i);
+            enqueue(i);
+        }
+    }
+
+    /**
+     * Chooses the moves of one vector of lanes.
+     *
+     * @param i
+     *          the vector's first lane
+     */
+    private void choose(int i) {
+        VectorMask<Integer> range = INTS.indexInRange(i, lanes);
+        VectorMask<Integer> m = IntVector.fromArray(INTS, winner, i, range).eq(-1).and(range);
+        VectorMask<Long> lm = m.cast(LONGS);
+        LongVector z = LongVector.fromArray(LONGS, rng, i, lm).add(GOLDEN);
+        z.intoArray(rng, i, lm);
+        z = z.lanewise(VectorOperators.XOR, z.lanewise(VectorOperators.LSHR, 30)).mul(0xBF58476D1CE4E5B9L);
+        z = z.lanewise(VectorOperators.XOR, z.lanewise(VectorOperators.LSHR, 27)).mul(0x94D049BB133111EBL);
+        z = z.lanewise(VectorOperators.XOR, z.lanewise(VectorOperators.LSHR, 31));
+        IntVector r = (IntVector) z.convertShape(VectorOperators.L2I, INTS, 0);
+        IntVector guessed = (IntVector) z.lanewise(VectorOperators.LSHR, 32).mul(7)
+                .lanewise(VectorOperators.LSHR, 32).convertShape(VectorOperators.L2I, INTS, 0);
+        IntVector cur = IntVector.fromArray(INTS, current, i, m);
+        IntVector h = IntVector.zero(INTS).addIndex(1).add(i).mul(seats).add(cur);
+        h.blend(0, m.not()).intoArray(index, 0);
+        IntVector first = IntVector.fromArray(INTS, hand, 0, index, 0, m);
+        IntVector second = IntVector.fromArray(INTS, drawn, i, m);
+        // the Countess is forced out by the King or Prince
+        VectorMask<Integer> firstForced = first.eq(7).and(second.eq(5).or(second.eq(6)));
+        VectorMask<Integer> secondForced = second.eq(7).and(first.eq(5).or(first.eq(6)));
+        VectorMask<Integer> playsFirst = r.and(1).eq(0).andNot(secondForced).or(firstForced);
+        IntVector c = second.blend(first, playsFirst);
+        IntVector k = first.blend(second, playsFirst);
+        IntVector.fromArray(INTS, usedSum, 0, index, 0, m).add(c).intoArray(usedSum, 0, index, 0, m);
+        k.intoArray(hand, 0, index, 0, m);
+        k.intoArray(kept, i, m);
+        VectorMask<Integer> targeted = IntVector.broadcast(INTS, TARGETED)
+                .lanewise(VectorOperators.LSHR, c).and(1).eq(1).and(m);
+        IntVector targets = IntVector.fromArray(INTS, alive, i, m)
+                .and(IntVector.fromArray(INTS, protectedSeats, i, m).not())
+                .and(IntVector.broadcast(INTS, 1).lanewise(VectorOperators.LSHL, cur).not())
+                .blend(0, targeted.not());
+        IntVector skip = r.lanewise(VectorOperators.LSHR, 8).and(0xFFFFFF)
+                .mul(targets.lanewise(VectorOperators.BIT_COUNT)).lanewise(VectorOperators.LSHR, 24);
+        targets.lanewise(VectorOperators.LSHL, 3).or(skip).intoArray(targetIndex, 0);
+        IntVector t = IntVector.fromArray(INTS, NTH_SEAT, 0, targetIndex, 0, m);
+        t.intoArray(target, i, m);
+        guessed.add(2).intoArray(guess, i, m);
+        // a targeted card without a target has no effect
+        c.blend(0, targeted.and(t.lt(0))).blend(-1, m.not()).intoArray(played, i, range);
+    }
+
+    /**
+     * Queues one vector of lanes under the cards they played.
+     *
+     * @param i
+     *          the vector's first lane
+     */
+    private void enqueue(int i) {
+        for (int q = 0; q < queued.length; q++) {
+            VectorMask<Integer> in = IntVector.fromArray(INTS, played, i, INTS.indexInRange(i, lanes))
+                    .eq(q)
+                    .and(INTS.indexInRange(i, lanes));
+            IntVector.zero(INTS).addIndex(1).add(i).compress(in).intoArray(queue, q * stride + queued[q]);
+            queued[q] += in.trueCount();
+        }
+    }
+
+    /**
+     * Applies every guard: a right guess puts the target out.
+     */
+    private void guards() {
+        int from = Card.GUARD.value() * stride;
+        int to = from + queued[Card.GUARD.value()];
+        for (int i = from; i < to; i += INTS.length()) {
+            guards(i, to);
+        }
+    }
+
+    /**
+     * Applies the guards of one vector of a queue.
+     *
+     * @param i
+     *          the position in the queue of the vector's first lane
+     * @param to
+     *          the end of the queue
+     */
+    private void guards(int i, int to) {
+        VectorMask<Integer> m = INTS.indexInRange(i, to);
+        IntVector lane = IntVector.fromArray(INTS, queue, i, m);
+        IntVector tgt = lane.mul(seats).add(IntVector.fromArray(INTS, target, 0, queue, i, m));
+        tgt.intoArray(index, 0);
+        VectorMask<Integer> hit = IntVector.fromArray(INTS, hand, 0, index, 0, m)
+                .eq(IntVector.fromArray(INTS, guess, 0, queue, i, m))
+                .and(m);
+        tgt.blend(-1, hit.not()).intoArray(index, 0);
+        knockOut(i, to);
+    }
+
+    /**
+     * Applies every baron: the lower card goes out, and on a tie the player with the higher used pile
+     * keeps their card, the target winning a tie of used piles.
+     */
+    private void barons() {
+        int from = Card.BARON.value() * stride;
+        int to = from + queued[Card.BARON.value()];
+        for (int i = from; i < to; i += INTS.length()) {
+            barons(i, to);
+        }
+    }
+
+    /**
+     * Applies the barons of one vector of a queue.
+     *
+     * @param i
+     *          the position in the queue of the vector's first lane
+     * @param to
+     *          the end of the queue
+     */
+    private void barons(int i, int to) {
+        VectorMask<Integer> m = INTS.indexInRange(i, to);
+        IntVector base = IntVector.fromArray(INTS, queue, i, m).mul(seats);
+        IntVector cur = base.add(IntVector.fromArray(INTS, current, 0, queue, i, m));
+        IntVector tgt = base.add(IntVector.fromArray(INTS, target, 0, queue, i, m));
+        cur.intoArray(index, 0);
+        tgt.intoArray(targetIndex, 0);
+        IntVector mine = IntVector.fromArray(INTS, kept, 0, queue, i, m);
+        IntVector theirs = IntVector.fromArray(INTS, hand, 0, targetIndex, 0, m);
+        IntVector curSum = IntVector.fromArray(INTS, usedSum, 0, index, 0, m);
+        IntVector tgtSum = IntVector.fromArray(INTS, usedSum, 0, targetIndex, 0, m);
+        VectorMask<Integer> userOut = mine.lt(theirs)
+                .or(mine.eq(theirs).and(tgtSum.compare(VectorOperators.GT, curSum)));
+        tgt.blend(cur, userOut).blend(-1, m.not()).intoArray(index, 0);
+        knockOut(i, to);
+    }
+
+    /**
+     * Puts out the seats held by the index map, one per lane of a vector of a queue: the card they hold
+     * goes onto their used pile. A lane whose index is -1 puts no one out.
+     *
+     * @param i
+     *          the position in the queue of the vector's first lane
+     * @param to
+     *          the end of the queue
+     */
+    private void knockOut(int i, int to) {
+        IntVector out = IntVector.fromArray(INTS, index, 0);
+        VectorMask<Integer> m = out.compare(VectorOperators.GE, 0).and(INTS.indexInRange(i, to));
+        out.blend(0, m.not()).intoArray(index, 0);
+        IntVector.fromArray(INTS, usedSum, 0, index, 0, m)
+                .add(IntVector.fromArray(INTS, hand, 0, index, 0, m))
+                .intoArray(usedSum, 0, index, 0, m);
+        IntVector.zero(INTS).intoArray(hand, 0, index, 0, m);
+        IntVector seat = out.sub(IntVector.fromArray(INTS, queue, i, m).mul(seats));
+        IntVector.fromArray(INTS, alive, 0, queue, i, m)
+                .and(IntVector.broadcast(INTS, 1).lanewise(VectorOperators.LSHL, seat).not())
+                .intoArray(alive, 0, queue, i, m);
+    }
+
+    /**
+     * Applies every handmaiden, prince, king and princess.
+     */
+    private void effects() {
+        int from = Card.HANDMAIDEN.value() * stride;
+        for (int i = from, to = from + queued[Card.HANDMAIDEN.value()]; i < to; i++) {
+            int lane = queue[i];
+            protectedSeats[lane] |= 1 << current[lane];
+        }
+        from = Card.PRINCE.value() * stride;
+        for (int i = from, to = from + queued[Card.PRINCE.value()]; i < to; i++) {
+            int lane = queue[i];
+            int t = target[lane];
+            int tgt = lane * seats + t;
+            usedSum[tgt] += hand[tgt];
+            if (deckPos[lane] < DECK_SIZE) {
+                hand[tgt] = deck[lane * DECK_SIZE + deckPos[lane]++];
+            } else {
+                hand[tgt] = 0;
+                alive[lane] &= ~(1 << t);
+            }
+        }
+        from = Card.KING.value() * stride;
+        for (int i = from, to = from + queued[Card.KING.value()]; i < to; i++) {
+            int lane = queue[i];
+            int base = lane * seats;
+            int cur = base + current[lane];
+            int tgt = base + target[lane];
+            hand[cur] = hand[tgt];
+            hand[tgt] = kept[lane];
+        }
+        from = Card.PRINCESS.value() * stride;
+        for (int i = from, to = from + queued[Card.PRINCESS.value()]; i < to; i++) {
+            int lane = queue[i];
+            int cur = current[lane];
+            int h = lane * seats + cur;
+            usedSum[h] += hand[h];
+            hand[h] = 0;
+            alive[lane] &= ~(1 << cur);
+        }
+    }
+
+    /**
+     * Ends the turn in every lane that played: the round is won by the last seat in it or, once the deck
+     * is empty, by the highest used pile, ties going to the first seat in turn order after the mover.
+     * Otherwise the next seat still in the round loses its protection and draws.
+     *
+     * @return the number of rounds still going on
+     */
+    private int endTurns() {
+        ending = 0;
+        int running = 0;
+        for (int i = 0; i < lanes; i += INTS.length()) {
+            running += endTurns(i);
+        }
+        return running;
+    }
+
+    /**
+     * Ends the turns of one vector of lanes.
+     *
+     * @param i
+     *          the vector's first lane
+     *
+     * @return the number of its rounds still going on
+     */
+    private int endTurns(int i) {
+        VectorMask<Integer> m = INTS.indexInRange(i, lanes);
+        m = IntVector.fromArray(INTS, winner, i, m).eq(-1).and(m);
+        if (!m.anyTrue()) {
+            return 0;
+        }
+        IntVector mask = IntVector.fromArray(INTS, alive, i, m);
+        IntVector cur = IntVector.fromArray(INTS, current, i, m);
+        IntVector pos = IntVector.fromArray(INTS, deckPos, i, m);
+        VectorMask<Integer> last = mask.and(mask.sub(1)).eq(0).and(m);
+        VectorMask<Integer> empty = pos.eq(DECK_SIZE).and(m).andNot(last);
+        VectorMask<Integer> going = m.andNot(last).andNot(empty);
+        mask.intoArray(index, 0);
+        IntVector.fromArray(INTS, LOWEST_SEAT, 0, index, 0, last).intoArray(winner, i, last);
+        IntVector after = cur.add(1);
+        after = after.blend(0, after.eq(seats));
+        IntVector rotated = mask.lanewise(VectorOperators.LSHR, after)
+                .or(mask.lanewise(VectorOperators.LSHL, IntVector.broadcast(INTS, seats).sub(after)))
+                .and((1 << seats) - 1);
+        rotated.intoArray(index, 0);
+        IntVector next = after.add(IntVector.fromArray(INTS, LOWEST_SEAT, 0, index, 0, going));
+        next = next.sub(seats, next.compare(VectorOperators.GE, seats));
+        next.intoArray(current, i, going);
+        IntVector.fromArray(INTS, protectedSeats, i, going)
+                .and(IntVector.broadcast(INTS, 1).lanewise(VectorOperators.LSHL, next).not())
+                .intoArray(protectedSeats, i, going);
+        IntVector lane = IntVector.zero(INTS).addIndex(1).add(i);
+        lane.mul(DECK_SIZE).add(pos).blend(0, going.not()).intoArray(index, 0);
+        IntVector.fromArray(INTS, deck, 0, index, 0, going).intoArray(drawn, i, going);
+        pos.add(1).intoArray(deckPos, i, going);
+        VectorMask<Integer> over = last.or(empty);
+        lane.compress(over).intoArray(ended, ending);
+        ending += over.trueCount();
+        int running = going.trueCount();
+        for (long bits = empty.toLong(); bits != 0; bits &= bits - 1) {
+            compareUsedPiles(i + Long.numberOfTrailingZeros(bits));
+        }
+        return running;
+    }
+
+    /**
+     * Ends a round whose deck is empty: the highest used pile wins, ties going to the first seat in turn
+     * order after the mover.
+     *
+     * @param lane
+     *          the lane
+     */
+    private void compareUsedPiles(int lane) {
+        int base = lane * seats;
+        int cur = current[lane];
+        int best = cur + 1 == seats ? 0 : cur + 1;
+        for (int n = 1, s = best; n < seats; n++) {
+            s = s + 1 == seats ? 0 : s + 1;
+            best = usedSum[base + s] > usedSum[base + best] ? s : best;
+        }
+        winner[lane] = best;
+        compared[lane] = 1;
+    }
+
+    /**
+     * Advances a lane's generator, SplitMix64.
+     *
+     * @param lane
+     *          the lane
+     *
+     * @return the next random long
+     */
+    private long next(int lane) {
+        long z = rng[lane] += GOLDEN;
+        return mix(z);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+}
@@ -0,0 +1,256 @@
+package sim;
+
+import ai.RandomAgent;
+import controller.Agent;
+import controller.Game;
+import controller.GameListener;
+import controller.MulticastListener;
+import controller.Player;
+import controller.PlayerList;
+import metrics.EngineMetrics;
+import metrics.TimedAgent;
+import model.Deck;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Plays batches of full games between computer agents across all cores.
+ * Every game gets its own seed derived from the master seed and the game's index,
+ * so any single game can be replayed exactly with playGame.
+ */
+public class MonteCarloRunner {
+
+    /**
+     * Number of games each fork/join task plays without splitting further.
+     */
+    private static final int GAMES_PER_TASK = 64;
+    /**
+     * One agent decision in this many is timed when metrics are on.
+     */
+    private static final int DECISION_SAMPLE = 16;
+
+    /**
+     * The seed all game seeds are derived from.
+     */
+    private long masterSeed;
+    /**
+     * The name of the agent in each seat.
+     */
+    private List<String> agentNames;
+    /**
+     * The factory of the agent in each seat.
+     */
+    private List<AgentFactory> agents;
+    /**
+     * The metrics every game feeds, null for none.
+     */
+    private EngineMetrics metrics;
+    /**
+     * The listeners notified of every game.
+     */
+    private List<GameListener> listeners;
+
+    /**
+     * Public constructor for a MonteCarloRunner object.
+     *
+     * @param masterSeed
+     *          the seed all game seeds are derived from
+     */
+    public MonteCarloRunner(long masterSeed) {
+        this.masterSeed = masterSeed;
+        this.agentNames = new ArrayList<>();
+        this.agents = new ArrayList<>();
+        this.listeners = new ArrayList<>();
+    }
+
+    /**
+     * Adds a seat at the table, played by agents from the given factory.
+     *
+     * @param agentName
+     *          the name of the agent, used to group results
+     * @param factory
+     *          the factory creating the agent for each game
+     */
+    public void addSeat(String agentName, AgentFactory factory) {
+        agentNames.add(agentName);
+        agents.add(factory);
+    }
+
+    /**
+     * Feeds the events of every game into the given metrics, with one agent decision in DECISION_SAMPLE timed.
+     *
+     * @param metrics
+     *          the metrics, null for none
+     */
+    public void setMetrics(EngineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Notifies a listener of the events of every game.
+     * Games run in parallel, so the listener must take events from several threads at once.
+     *
+     * @param listener
+     *          the listener
+     */
+    public void addListener(GameListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Gets the seed of a game.
+     *
+     * @param game
+     *          the index of the game in the batch
+     *
+     * @return the seed of the game
+     */
+    public long seedFor(long game) {
+        long z = masterSeed + (game + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Plays a single game. Agents that are also GameListeners are notified of its events.
+     *
+     * @param seed
+     *          the seed of the game
+     * @param listener
+     *          the listener notified of game events, null for none
+     *
+     * @return the seat of the winner
+     */
+    public int playGame(long seed, GameListener listener) {
+        SplittableRandom random = new SplittableRandom(seed);
+        PlayerList players = new PlayerList();
+        List<GameListener> listeners = new ArrayList<>(this.listeners);
+        if (listener != null) {
+            listeners.add(listener);
+        }
+        if (metrics != null) {
+            listeners.add(metrics);
+        }
+        for (int i = 0; i < agents.size(); i++) {
+            Agent agent = agents.get(i).create(random.split());
+            if (agent instanceof GameListener) {
+                listeners.add((GameListener) agent);
+            }
+            players.addPlayer(agentNames.get(i) + " " + i, metrics == null ? agent : new TimedAgent(agent, metrics, DECISION_SAMPLE));
+        }
+        GameListener all = listeners.isEmpty() ? null : listeners.size() == 1 ? listeners.get(0)
+                : new MulticastListener(listeners.toArray(new GameListener[0]));
+        Game game = new Game(players, new Deck(random.split()), all);
+        game.start();
+        return players.getGameWinner().getSeat();
+    }
+
+    /**
+     * Plays a batch of games on a fork/join pool.
+     *
+     * @param games
+     *          the number of games
+     * @param parallelism
+     *          the number of worker threads
+     *
+     * @return the aggregate results
+     */
+    public RunResults run(long games, int parallelism) {
+        if (agents.size() < 2) {
+            throw new IllegalStateException("At least two seats are needed");
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            long[] totals = pool.invoke(new Batch(0, games));
+            long[] wins = new long[agents.size()];
+            System.arraycopy(totals, 0, wins, 0, wins.length);
+            return new RunResults(agentNames.toArray(new String[0]), wins, totals[wins.length]);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Task playing a range of games. Its result holds the wins of each seat followed by the number of rounds.
+     */
+    private class Batch extends RecursiveTask<long[]> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long from;
+        private final long to;
+
+        Batch(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from > GAMES_PER_TASK) {
+                long mid = (from + to) >>> 1;
+                Batch left = new Batch(from, mid);
+                left.fork();
+                long[] right = new Batch(mid, to).compute();
+                long[] totals = left.join();
+                for (int i = 0; i < totals.length; i++) {
+                    totals[i] += right[i];
+                }
+                return totals;
+            }
+            long[] totals = new long[agents.size() + 1];
+            GameListener roundCounter = new GameListener() {
+                @Override
+                public void roundWon(Player winner, PlayerList players) {
+                    totals[totals.length - 1]++;
+                }
+            };
+            for (long game = from; game < to; game++) {
+                totals[playGame(seedFor(game), roundCounter)]++;
+            }
+            return totals;
+        }
+    }
+
+    /**
+     * Plays a batch of games between random agents and prints the results.
+     * The engine metrics are registered over JMX and can be dumped to standard error as the games run.
+     *
+     * @param args
+     *          the number of games, the number of seats, the number of threads, the master seed
+     *          and the seconds between metric dumps (0 for none)
+     */
+    public static void main(String[] args) throws IOException {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 100000;
+        int seats = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 1;
+        long dumpMillis = args.length > 4 ? Long.parseLong(args[4]) * 1000 : 0;
+
+        MonteCarloRunner runner = new MonteCarloRunner(seed);
+        EngineMetrics metrics = new EngineMetrics();
+        metrics.register("MonteCarloRunner");
+        runner.setMetrics(metrics);
+        Closeable dump = dumpMillis > 0 ? metrics.startDump(System.err, dumpMillis) : null;
+        for (int i = 0; i < seats; i++) {
+            runner.addSeat("random", RandomAgent::new);
+        }
+        long start = System.nanoTime();
+        RunResults results = runner.run(games, threads);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.print(results);
+        System.out.printf("%.2f s, %.0f games/s%n", seconds, results.getGames() / seconds);
+        if (dump != null) {
+            dump.close();
+            System.err.print(metrics);
+        }
+    }
+
+}
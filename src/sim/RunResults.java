@@ -0,0 +1,121 @@
+package sim;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Aggregate results of a batch of simulated games.
+ */
+public class RunResults {
+
+    /**
+     * The name of the agent in each seat.
+     */
+    private String[] agentNames;
+    /**
+     * The number of games won by each seat.
+     */
+    private long[] wins;
+    /**
+     * The number of rounds played.
+     */
+    private long rounds;
+
+    /**
+     * Public constructor for a RunResults object.
+     *
+     * @param agentNames
+     *          the name of the agent in each seat
+     * @param wins
+     *          the number of games won by each seat
+     * @param rounds
+     *          the number of rounds played
+     */
+    public RunResults(String[] agentNames, long[] wins, long rounds) {
+        this.agentNames = agentNames;
+        this.wins = wins;
+        this.rounds = rounds;
+    }
+
+    /**
+     * Gets the number of games played.
+     *
+     * @return the number of games
+     */
+    public long getGames() {
+        long games = 0;
+        for (long w : wins) {
+            games += w;
+        }
+        return games;
+    }
+
+    /**
+     * Gets the number of rounds played.
+     *
+     * @return the number of rounds
+     */
+    public long getRounds() {
+        return this.rounds;
+    }
+
+    /**
+     * Gets the number of games won by a seat.
+     *
+     * @param seat
+     *          the seat
+     *
+     * @return the number of wins
+     */
+    public long getWins(int seat) {
+        return this.wins[seat];
+    }
+
+    /**
+     * Gets the share of games won by a seat.
+     *
+     * @param seat
+     *          the seat
+     *
+     * @return the win rate between 0 and 1
+     */
+    public double winRate(int seat) {
+        return (double) wins[seat] / getGames();
+    }
+
+    /**
+     * Gets the share of seat-games won by an agent over all the seats it played in.
+     *
+     * @param agentName
+     *          the name of the agent
+     *
+     * @return the win rate per seat between 0 and 1
+     */
+    public double agentWinRate(String agentName) {
+        long won = 0;
+        int seats = 0;
+        for (int i = 0; i < agentNames.length; i++) {
+            if (agentNames[i].equals(agentName)) {
+                won += wins[i];
+                seats++;
+            }
+        }
+        return seats == 0 ? 0 : (double) won / ((long) seats * getGames());
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(getGames()).append(" games, ").append(rounds).append(" rounds\n");
+        Map<String, Double> byAgent = new LinkedHashMap<>();
+        for (int i = 0; i < agentNames.length; i++) {
+            sb.append(String.format("seat %d %-12s %6.2f%%%n", i, agentNames[i], 100 * winRate(i)));
+            byAgent.put(agentNames[i], agentWinRate(agentNames[i]));
+        }
+        for (Map.Entry<String, Double> e : byAgent.entrySet()) {
+            sb.append(String.format("agent %-12s %6.2f%% per seat%n", e.getKey(), 100 * e.getValue()));
+        }
+        return sb.toString();
+    }
+
+}
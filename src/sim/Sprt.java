@@ -0,0 +1,117 @@
+package sim;
+
+/**
+ * Sequential probability ratio test between two agents, deciding which of two Elo differences
+ * their head-to-head results come from. Results are wins, draws and losses of the first agent,
+ * and the log-likelihood ratio uses the normal approximation of the trinomial score, so the test
+ * can be checked after every batch of games at no cost.
+ * With hypotheses -d and +d the test settles which agent is stronger, unless they are closer than d.
+ */
+public class Sprt {
+
+    /**
+     * What the results so far show.
+     */
+    public enum Decision {
+        /**
+         * The Elo difference is elo0.
+         */
+        H0,
+        /**
+         * The Elo difference is elo1.
+         */
+        H1,
+        /**
+         * More games are needed.
+         */
+        CONTINUE
+    }
+
+    /**
+     * The expected score under each hypothesis.
+     */
+    private final double s0;
+    private final double s1;
+    /**
+     * The LLR below which H0 is accepted.
+     */
+    private final double lower;
+    /**
+     * The LLR above which H1 is accepted.
+     */
+    private final double upper;
+
+    /**
+     * Public constructor for a Sprt object.
+     *
+     * @param elo0
+     *          the Elo difference of the null hypothesis
+     * @param elo1
+     *          the Elo difference of the alternative hypothesis, above elo0
+     * @param alpha
+     *          the chance of accepting H1 when H0 holds
+     * @param beta
+     *          the chance of accepting H0 when H1 holds
+     */
+    public Sprt(double elo0, double elo1, double alpha, double beta) {
+        if (elo1 <= elo0 || alpha <= 0 || alpha >= 1 || beta <= 0 || beta >= 1) {
+            throw new IllegalArgumentException("Invalid test bounds");
+        }
+        this.s0 = expectedScore(elo0);
+        this.s1 = expectedScore(elo1);
+        this.lower = Math.log(beta / (1 - alpha));
+        this.upper = Math.log((1 - beta) / alpha);
+    }
+
+    /**
+     * Gets the expected score of an agent against another.
+     *
+     * @param elo
+     *          the Elo difference between the agent and its opponent
+     *
+     * @return the expected score between 0 and 1
+     */
+    public static double expectedScore(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+
+    /**
+     * Gets the log-likelihood ratio of H1 against H0. Half a win and half a loss are added to the
+     * results so the score variance is never zero.
+     *
+     * @param wins
+     *          the games won by the first agent
+     * @param draws
+     *          the games neither agent won
+     * @param losses
+     *          the games won by the second agent
+     *
+     * @return the log-likelihood ratio
+     */
+    public double llr(long wins, long draws, long losses) {
+        double w = wins + 0.5;
+        double l = losses + 0.5;
+        double n = w + draws + l;
+        double score = (w + draws / 2.0) / n;
+        double variance = (w * (1 - score) * (1 - score) + draws * (0.5 - score) * (0.5 - score) + l * score * score) / n;
+        return n * (s1 - s0) * (2 * score - s0 - s1) / (2 * variance);
+    }
+
+    /**
+     * Decides the test on the results so far.
+     *
+     * @param wins
+     *          the games won by the first agent
+     * @param draws
+     *          the games neither agent won
+     * @param losses
+     *          the games won by the second agent
+     *
+     * @return the decision
+     */
+    public Decision decide(long wins, long draws, long losses) {
+        double llr = llr(wins, draws, losses);
+        return llr <= lower ? Decision.H0 : llr >= upper ? Decision.H1 : Decision.CONTINUE;
+    }
+
+}
@@ -0,0 +1,243 @@
+package sim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The standings of a tournament: the points, Elo rating and head-to-head record of every entrant.
+ * A game is a win of its winner over every other entrant at the table and a draw between the rest.
+ * Ratings are updated game by game, scaled down by the number of opponents at the table,
+ * and tables are recorded in a fixed order so the ratings do not depend on thread timing.
+ */
+public class Standings {
+
+    /**
+     * The rating every entrant starts with.
+     */
+    public static final double INITIAL_RATING = 1500;
+    /**
+     * The Elo K-factor of a two-seat game.
+     */
+    private static final double K = 16;
+
+    private final String[] names;
+    private final double[] ratings;
+    /**
+     * The tournament points of each entrant, earned per table from head-to-head results.
+     */
+    private final double[] points;
+    /**
+     * The number of games played by each entrant.
+     */
+    private final long[] games;
+    /**
+     * The number of games won by each entrant.
+     */
+    private final long[] won;
+    /**
+     * wins[a][b] is the number of games a won at a table with b.
+     */
+    private final long[][] wins;
+    /**
+     * shared[a][b] is the number of games a and b played at the same table.
+     */
+    private final long[][] shared;
+    /**
+     * The number of byes of each entrant.
+     */
+    private final int[] byes;
+
+    /**
+     * Public constructor for a Standings object.
+     *
+     * @param names
+     *          the name of each entrant
+     */
+    public Standings(String[] names) {
+        int n = names.length;
+        this.names = names.clone();
+        this.ratings = new double[n];
+        Arrays.fill(ratings, INITIAL_RATING);
+        this.points = new double[n];
+        this.games = new long[n];
+        this.won = new long[n];
+        this.wins = new long[n][n];
+        this.shared = new long[n][n];
+        this.byes = new int[n];
+    }
+
+    /**
+     * Records the games of a table. Each entrant earns a point for every other entrant at the table
+     * it beat head-to-head and half a point for every one it tied.
+     *
+     * @param entrants
+     *          the entrants at the table
+     * @param winners
+     *          the table index of the winner of each game, in the order the games were played
+     * @param count
+     *          the number of games played
+     */
+    void record(int[] entrants, byte[] winners, int count) {
+        int k = entrants.length;
+        long[][] h2h = new long[k][k];
+        for (int g = 0; g < count; g++) {
+            int w = entrants[winners[g]];
+            won[w]++;
+            for (int i = 0; i < k; i++) {
+                int e = entrants[i];
+                games[e]++;
+                if (e == w) {
+                    continue;
+                }
+                h2h[winners[g]][i]++;
+                wins[w][e]++;
+                double delta = K / (k - 1) * (1 - Sprt.expectedScore(ratings[w] - ratings[e]));
+                ratings[w] += delta;
+                ratings[e] -= delta;
+            }
+            for (int i = 0; i < k; i++) {
+                for (int j = 0; j < k; j++) {
+                    if (i != j) {
+                        shared[entrants[i]][entrants[j]]++;
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < k; i++) {
+            for (int j = 0; j < k; j++) {
+                if (i != j) {
+                    points[entrants[i]] += h2h[i][j] > h2h[j][i] ? 1 : h2h[i][j] == h2h[j][i] ? 0.5 : 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * Records a bye, worth a point for every opponent the entrant would have faced.
+     *
+     * @param entrant
+     *          the entrant sitting out
+     * @param opponents
+     *          the number of opponents at a table
+     */
+    void bye(int entrant, int opponents) {
+        points[entrant] += opponents;
+        byes[entrant]++;
+    }
+
+    /**
+     * Gets the number of entrants.
+     *
+     * @return the number of entrants
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Gets the name of an entrant.
+     *
+     * @param entrant
+     *          the entrant
+     *
+     * @return the name
+     */
+    public String getName(int entrant) {
+        return this.names[entrant];
+    }
+
+    /**
+     * Gets the Elo rating of an entrant.
+     *
+     * @param entrant
+     *          the entrant
+     *
+     * @return the rating
+     */
+    public double getRating(int entrant) {
+        return this.ratings[entrant];
+    }
+
+    /**
+     * Gets the tournament points of an entrant.
+     *
+     * @param entrant
+     *          the entrant
+     *
+     * @return the points
+     */
+    public double getPoints(int entrant) {
+        return this.points[entrant];
+    }
+
+    /**
+     * Gets the number of byes of an entrant.
+     *
+     * @param entrant
+     *          the entrant
+     *
+     * @return the number of byes
+     */
+    public int getByes(int entrant) {
+        return this.byes[entrant];
+    }
+
+    /**
+     * Checks whether two entrants have played at the same table.
+     *
+     * @param a
+     *          an entrant
+     * @param b
+     *          another entrant
+     *
+     * @return true if they have met, false if not
+     */
+    public boolean haveMet(int a, int b) {
+        return shared[a][b] > 0;
+    }
+
+    /**
+     * Gets the number of games one entrant won at a table with another.
+     *
+     * @param a
+     *          the entrant
+     * @param b
+     *          the opponent
+     *
+     * @return the number of wins
+     */
+    public long getWins(int a, int b) {
+        return this.wins[a][b];
+    }
+
+    /**
+     * Gets the entrants from first to last, by points, then rating, then entry order.
+     *
+     * @return the entrant indices in ranking order
+     */
+    public int[] ranking() {
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < names.length; i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.<Integer>comparingDouble(i -> -points[i])
+                .thenComparingDouble(i -> -ratings[i])
+                .thenComparingInt(i -> i));
+        return order.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-4s %-16s %7s %7s %8s %7s%n", "rank", "entrant", "points", "rating", "games", "won"));
+        int rank = 1;
+        for (int e : ranking()) {
+            sb.append(String.format("%-4d %-16s %7.1f %7.0f %8d %6.2f%%%n", rank++, names[e], points[e], ratings[e],
+                    games[e], games[e] == 0 ? 0 : 100.0 * won[e] / games[e]));
+        }
+        return sb.toString();
+    }
+
+}
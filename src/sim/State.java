@@ -0,0 +1,597 @@
+package sim;
+
+import model.Card;
+import model.Move;
+
+/**
+ * Compact, immutable state of a single round, packed into three longs.
+ * Applying a move copies the three longs and changes the copy, so a search can fork
+ * the state as often as it likes without building Player, Hand or UsedPile objects.
+ *
+ * The rules are the same as those of the Game class: the Countess rule is left to the move lists,
+ * a card with no valid target has no effect and a round that runs out of cards
+ * is won by the highest used pile, ties going to the first player in turn order after
+ * the last player to move.
+ *
+ * Cards are stored by value (1-8), 0 meaning no card.
+ */
+public final class State {
+
+    /**
+     * The largest number of seats a State can hold.
+     */
+    public static final int MAX_SEATS = 4;
+    /**
+     * The number of cards in a full deck.
+     */
+    public static final int DECK_SIZE = 16;
+
+    /**
+     * Bit offset of each card value's count within a seat's used pile.
+     * Counts take 3 bits for guards, 2 bits for cards with two copies and 1 bit otherwise.
+     */
+    private static final int[] USED_SHIFT = {0, 0, 3, 5, 7, 9, 11, 12, 13};
+    /**
+     * Mask of each card value's count within a seat's used pile.
+     */
+    private static final int[] USED_MASK = {0, 7, 3, 3, 3, 3, 1, 1, 1};
+    /**
+     * Number of bits taken by the used pile of one seat.
+     */
+    private static final int USED_SEAT_BITS = 14;
+
+    private static final int PROTECTED_SHIFT = 32;
+    private static final int CURRENT_SHIFT = 36;
+    private static final int SEATS_SHIFT = 38;
+    private static final int DECK_SIZE_SHIFT = 41;
+    private static final int WINNER_SHIFT = 46;
+    private static final long COMPARED_BIT = 1L << 49;
+
+    private static final Card[] CARDS = Card.values();
+
+    /**
+     * The remaining deck, 3 bits per card (value - 1), top card in the lowest bits.
+     */
+    private long deck;
+    /**
+     * Hands (8 bits per seat, two 4 bit cards), protection flags, current seat,
+     * number of seats, deck size and the round winner.
+     */
+    private long table;
+    /**
+     * Used piles as card counts, 14 bits per seat.
+     */
+    private long used;
+
+    private State(long deck, long table, long used) {
+        this.deck = deck;
+        this.table = table;
+        this.used = used;
+    }
+
+    /**
+     * Deals a new round: one card to each seat starting with the first player,
+     * who then draws and is the player to move.
+     *
+     * @param seats
+     *          the number of seats (2 to MAX_SEATS)
+     * @param first
+     *          the seat of the first player
+     * @param order
+     *          the cards of the deck, the first card being dealt first
+     *
+     * @return the state at the first player's decision
+     */
+    public static State deal(int seats, int first, Card[] order) {
+        if (seats < 2 || seats > MAX_SEATS) {
+            throw new IllegalArgumentException("A state holds 2 to " + MAX_SEATS + " seats");
+        }
+        if (order.length <= seats || order.length > DECK_SIZE) {
+            throw new IllegalArgumentException("Invalid deck size " + order.length);
+        }
+        long deck = 0;
+        for (int i = order.length - 1; i >= 0; i--) {
+            deck = deck << 3 | (order[i].value() - 1);
+        }
+        long table = (long) seats << SEATS_SHIFT | (long) order.length << DECK_SIZE_SHIFT;
+        State s = new State(deck, table, 0);
+        for (int i = 0; i < seats; i++) {
+            int seat = (first + i) % seats;
+            s.setHand(seat, s.draw());
+        }
+        s.startTurn(first);
+        return s;
+    }
+
+    /**
+     * Creates a state from its packed fields, as returned by the getters of the same names.
+     *
+     * @param deck
+     *          the packed deck
+     * @param table
+     *          the packed table
+     * @param used
+     *          the packed used piles
+     *
+     * @return the state
+     */
+    public static State of(long deck, long table, long used) {
+        return new State(deck, table, used);
+    }
+
+    /**
+     * Creates a state at a player's decision from its parts, such as a determinization
+     * of a round in progress. The player to move must already have drawn.
+     *
+     * @param current
+     *          the seat of the player to move
+     * @param hands
+     *          the hand of each seat, by card value: slot 0 in bits 0-3 and slot 1 in bits 4-7, 0 if out
+     * @param protectedSeats
+     *          one bit per seat protected by a handmaiden
+     * @param used
+     *          the used pile of each seat, as card counts indexed by card value
+     * @param deck
+     *          the values of the cards left in the deck, the next card drawn first
+     * @param deckSize
+     *          the number of cards left in the deck
+     *
+     * @return the state
+     */
+    public static State of(int current, int[] hands, int protectedSeats, int[][] used, int[] deck, int deckSize) {
+        int seats = hands.length;
+        if (seats < 2 || seats > MAX_SEATS) {
+            throw new IllegalArgumentException("A state holds 2 to " + MAX_SEATS + " seats");
+        }
+        long packedDeck = 0;
+        for (int i = deckSize - 1; i >= 0; i--) {
+            packedDeck = packedDeck << 3 | (deck[i] - 1);
+        }
+        long table = (long) seats << SEATS_SHIFT | (long) deckSize << DECK_SIZE_SHIFT
+                | (long) current << CURRENT_SHIFT | (long) protectedSeats << PROTECTED_SHIFT;
+        long packedUsed = 0;
+        for (int seat = 0; seat < seats; seat++) {
+            table |= (long) hands[seat] << (seat << 3);
+            for (int card = 1; card <= 8; card++) {
+                packedUsed += (long) used[seat][card] << (seat * USED_SEAT_BITS + USED_SHIFT[card]);
+            }
+        }
+        return new State(packedDeck, table, packedUsed);
+    }
+
+    /**
+     * Lists every legal move of the player to move. A targeted card with no valid target is
+     * played without one, and holding the Countess with the King or Prince forces the Countess.
+     *
+     * @param moves
+     *          receives the packed moves, at least Move.MAX_MOVES long
+     *
+     * @return the number of moves
+     */
+    public int legalMoves(int[] moves) {
+        return listMoves(moves, false);
+    }
+
+    /**
+     * Lists the legal moves of the player to move that are worth searching: when both cards are
+     * the same only the first is played, and a guard only guesses cards that are not all in sight
+     * of the player.
+     *
+     * @param moves
+     *          receives the packed moves, at least Move.MAX_MOVES long
+     *
+     * @return the number of moves
+     */
+    public int searchMoves(int[] moves) {
+        return listMoves(moves, true);
+    }
+
+    private int listMoves(int[] moves, boolean prune) {
+        int seat = current();
+        int first = hand(seat, 0);
+        int second = hand(seat, 1);
+        boolean countess = first == 7 && (second == 5 || second == 6) || second == 7 && (first == 5 || first == 6);
+        int n = 0;
+        for (int slot = 0; slot < 2; slot++) {
+            int card = slot == 0 ? first : second;
+            int kept = slot == 0 ? second : first;
+            if (countess && card != 7 || prune && slot == 1 && first == second) {
+                continue;
+            }
+            int start = n;
+            if (CARDS[card - 1].isTargeted()) {
+                for (int target = 0; target < seats(); target++) {
+                    if (target == seat || !isAlive(target) || isProtected(target)) {
+                        continue;
+                    }
+                    if (card != 1) {
+                        moves[n++] = Move.of(slot, target, 0);
+                        continue;
+                    }
+                    int guesses = n;
+                    for (int guess = 2; guess <= 8; guess++) {
+                        if (prune && hidden(guess, kept) == 0) {
+                            continue;
+                        }
+                        moves[n++] = Move.of(slot, target, guess);
+                    }
+                    if (n == guesses) {
+                        moves[n++] = Move.of(slot, target, 2);
+                    }
+                }
+            }
+            if (n == start) {
+                moves[n++] = Move.of(slot, Move.NO_TARGET, 0);
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Counts the copies of a card the player to move cannot see.
+     *
+     * @param card
+     *          the card value
+     * @param kept
+     *          the value of the card the player keeps
+     *
+     * @return the number of hidden copies
+     */
+    private int hidden(int card, int kept) {
+        int hidden = CARDS[card - 1].copies() - (kept == card ? 1 : 0);
+        for (int p = 0; p < seats(); p++) {
+            hidden -= usedCount(p, card);
+        }
+        return hidden;
+    }
+
+    /**
+     * Plays a move for the current player.
+     * The move must be legal; it is not checked.
+     *
+     * @param move
+     *          the packed move
+     *
+     * @return the state after the move, at the next player's decision or at the end of the round
+     */
+    public State apply(int move) {
+        State next = new State(deck, table, used);
+        next.play(move);
+        return next;
+    }
+
+    /**
+     * Performs a move on this (freshly copied) state.
+     *
+     * @param move
+     *          the packed move
+     */
+    private void play(int move) {
+        int seat = current();
+        int hand = handBits(seat);
+        int slot = Move.slot(move);
+        int card = hand >>> (slot << 2) & 15;
+        int kept = hand >>> ((1 - slot) << 2) & 15;
+        setHand(seat, kept);
+        addUsed(seat, card);
+
+        int target = Move.target(move);
+        if (card == 4) {
+            table |= 1L << (PROTECTED_SHIFT + seat);
+        } else if (card == 8) {
+            discard(seat);
+        } else if (target != Move.NO_TARGET) {
+            int opponent = handBits(target);
+            if (card == 1) {
+                if (opponent == Move.guess(move)) {
+                    discard(target);
+                }
+            } else if (card == 3) {
+                if (kept > opponent) {
+                    discard(target);
+                } else if (kept < opponent || usedValue(target) > usedValue(seat)) {
+                    discard(seat);
+                } else {
+                    discard(target);
+                }
+            } else if (card == 5) {
+                discard(target);
+                if (deckSize() > 0) {
+                    setHand(target, draw());
+                }
+            } else if (card == 6) {
+                setHand(seat, opponent);
+                setHand(target, kept);
+            }
+        }
+        endTurn(seat);
+    }
+
+    /**
+     * Ends the turn of the given seat, either finishing the round or starting the next turn.
+     *
+     * @param seat
+     *          the seat that just moved
+     */
+    private void endTurn(int seat) {
+        int seats = seats();
+        int alive = 0;
+        int last = 0;
+        for (int s = 0; s < seats; s++) {
+            if (handBits(s) != 0) {
+                alive++;
+                last = s;
+            }
+        }
+        if (alive == 1) {
+            table |= (long) (last + 1) << WINNER_SHIFT;
+        } else if (deckSize() == 0) {
+            int winner = (seat + 1) % seats;
+            for (int i = 2; i <= seats; i++) {
+                int s = (seat + i) % seats;
+                if (usedValue(s) > usedValue(winner)) {
+                    winner = s;
+                }
+            }
+            table |= (long) (winner + 1) << WINNER_SHIFT | COMPARED_BIT;
+        } else {
+            int next = (seat + 1) % seats;
+            while (handBits(next) == 0) {
+                next = (next + 1) % seats;
+            }
+            startTurn(next);
+        }
+    }
+
+    /**
+     * Makes the given seat the current player: their protection ends and they draw.
+     *
+     * @param seat
+     *          the seat of the next player
+     */
+    private void startTurn(int seat) {
+        table &= ~(1L << (PROTECTED_SHIFT + seat) | 3L << CURRENT_SHIFT);
+        table |= (long) seat << CURRENT_SHIFT;
+        setHand(seat, handBits(seat) | draw() << 4);
+    }
+
+    /**
+     * Removes the top card of the deck.
+     *
+     * @return the value of the card
+     */
+    private int draw() {
+        int card = (int) (deck & 7) + 1;
+        deck >>>= 3;
+        table -= 1L << DECK_SIZE_SHIFT;
+        return card;
+    }
+
+    /**
+     * Moves the single card held by a seat to its used pile.
+     *
+     * @param seat
+     *          the seat losing its card
+     */
+    private void discard(int seat) {
+        addUsed(seat, handBits(seat) & 15);
+        setHand(seat, 0);
+    }
+
+    private void addUsed(int seat, int card) {
+        used += 1L << (seat * USED_SEAT_BITS + USED_SHIFT[card]);
+    }
+
+    private int handBits(int seat) {
+        return (int) (table >>> (seat << 3)) & 0xFF;
+    }
+
+    private void setHand(int seat, int hand) {
+        table = table & ~(0xFFL << (seat << 3)) | (long) hand << (seat << 3);
+    }
+
+    /**
+     * Gets the number of seats at the table.
+     *
+     * @return the number of seats
+     */
+    public int seats() {
+        return (int) (table >>> SEATS_SHIFT) & 7;
+    }
+
+    /**
+     * Gets the seat of the player to move.
+     *
+     * @return the current seat
+     */
+    public int current() {
+        return (int) (table >>> CURRENT_SHIFT) & 3;
+    }
+
+    /**
+     * Gets the number of cards left in the deck.
+     *
+     * @return the deck size
+     */
+    public int deckSize() {
+        return (int) (table >>> DECK_SIZE_SHIFT) & 31;
+    }
+
+    /**
+     * Gets the value of a card in the deck.
+     *
+     * @param idx
+     *          the position from the top of the deck (0 is the next card drawn)
+     *
+     * @return the card value
+     */
+    public int deckCard(int idx) {
+        return (int) (deck >>> (idx * 3) & 7) + 1;
+    }
+
+    /**
+     * Gets the value of a card held by a seat.
+     *
+     * @param seat
+     *          the seat
+     * @param slot
+     *          the position in the hand (0 or 1)
+     *
+     * @return the card value, 0 if there is no card
+     */
+    public int hand(int seat, int slot) {
+        return handBits(seat) >>> (slot << 2) & 15;
+    }
+
+    /**
+     * Gets a card held by a seat.
+     *
+     * @param seat
+     *          the seat
+     * @param slot
+     *          the position in the hand (0 or 1)
+     *
+     * @return the card, null if there is no card
+     */
+    public Card handCard(int seat, int slot) {
+        int card = hand(seat, slot);
+        return card == 0 ? null : CARDS[card - 1];
+    }
+
+    /**
+     * Checks to see if a seat still has cards.
+     *
+     * @param seat
+     *          the seat
+     *
+     * @return true if the seat is still in the round, false if not
+     */
+    public boolean isAlive(int seat) {
+        return handBits(seat) != 0;
+    }
+
+    /**
+     * Checks to see if a seat is protected by a handmaiden.
+     *
+     * @param seat
+     *          the seat
+     *
+     * @return true if the seat is protected, false if not
+     */
+    public boolean isProtected(int seat) {
+        return (table >>> (PROTECTED_SHIFT + seat) & 1) != 0;
+    }
+
+    /**
+     * Gets the number of copies of a card in a seat's used pile.
+     *
+     * @param seat
+     *          the seat
+     * @param card
+     *          the card value
+     *
+     * @return the number of copies
+     */
+    public int usedCount(int seat, int card) {
+        return (int) (used >>> (seat * USED_SEAT_BITS + USED_SHIFT[card])) & USED_MASK[card];
+    }
+
+    /**
+     * Gets the sum value of a seat's used pile.
+     *
+     * @param seat
+     *          the seat
+     *
+     * @return the used pile value
+     */
+    public int usedValue(int seat) {
+        int value = 0;
+        for (int card = 1; card <= 8; card++) {
+            value += card * usedCount(seat, card);
+        }
+        return value;
+    }
+
+    /**
+     * Checks to see if the round is over.
+     *
+     * @return true if the round has a winner, false if not
+     */
+    public boolean isOver() {
+        return winner() != -1;
+    }
+
+    /**
+     * Gets the winner of the round.
+     *
+     * @return the winning seat, -1 if the round is not over
+     */
+    public int winner() {
+        return (int) (table >>> WINNER_SHIFT & 7) - 1;
+    }
+
+    /**
+     * Checks to see if the round was decided by comparing used piles.
+     * The Game awards an extra block for such a win.
+     *
+     * @return true if the used piles decided the round, false if not
+     */
+    public boolean wonOnUsedPiles() {
+        return (table & COMPARED_BIT) != 0;
+    }
+
+    /**
+     * Gets the packed deck.
+     *
+     * @return the packed deck
+     */
+    public long deck() {
+        return this.deck;
+    }
+
+    /**
+     * Gets the packed hands, flags and counters.
+     *
+     * @return the packed table
+     */
+    public long table() {
+        return this.table;
+    }
+
+    /**
+     * Gets the packed used piles.
+     *
+     * @return the packed used piles
+     */
+    public long used() {
+        return this.used;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof State)) {
+            return false;
+        }
+        State s = (State) o;
+        return deck == s.deck && table == s.table && used == s.used;
+    }
+
+    @Override
+    public int hashCode() {
+        long h = deck * 0x9E3779B97F4A7C15L ^ table * 0xC2B2AE3D27D4EB4FL ^ used * 0x165667B19E3779F9L;
+        return (int) (h ^ h >>> 32);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("State[");
+        for (int s = 0; s < seats(); s++) {
+            sb.append(s == current() ? "*" : "").append(s).append(": ")
+                    .append(handCard(s, 0)).append('/').append(handCard(s, 1))
+                    .append(isProtected(s) ? " protected" : "")
+                    .append(" used ").append(usedValue(s)).append(", ");
+        }
+        return sb.append("deck ").append(deckSize()).append(", winner ").append(winner()).append(']').toString();
+    }
+
+}
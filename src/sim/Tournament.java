@@ -0,0 +1,416 @@
+package sim;
+
+import ai.HeuristicAgent;
+import ai.MctsAgent;
+import ai.RandomAgent;
+import controller.Agent;
+import controller.Game;
+import controller.GameListener;
+import controller.MulticastListener;
+import controller.PlayerList;
+import model.Deck;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Plays round-robin and Swiss tournaments between agents at tables of two or more seats.
+ * The tables of a round-robin, or of one Swiss round, are played in parallel. Each table plays
+ * its games in batches and stops as soon as a sequential probability ratio test has settled every
+ * pair of entrants at it, or when it reaches the game limit.
+ * Games are dealt in sets of one deal per seat rotation, so every entrant plays every deal from
+ * every seat and the luck of the draw cancels out. Every deal has a seed derived from the master
+ * seed and the entrants at the table, who are seated in ascending order whatever order the format
+ * lists them in, so a table plays the same games whatever the format.
+ */
+public class Tournament {
+
+    /**
+     * The seed all game seeds are derived from.
+     */
+    private final long masterSeed;
+    /**
+     * The number of seats at each table.
+     */
+    private final int seats;
+    private final List<String> names;
+    private final List<AgentFactory> factories;
+    /**
+     * The test run between every pair at a table.
+     */
+    private Sprt sprt;
+    /**
+     * The number of deals played between two checks of the test.
+     */
+    private int dealsPerBatch;
+    /**
+     * The largest number of games at a table.
+     */
+    private int maxGames;
+    /**
+     * Where table results are reported, null for nowhere.
+     */
+    private PrintStream log;
+
+    /**
+     * Public constructor for a Tournament object, testing -10 against +10 Elo at 5% error rates
+     * every 8 deals, for at most 1000 games per table.
+     *
+     * @param masterSeed
+     *          the seed all game seeds are derived from
+     * @param seats
+     *          the number of seats at each table
+     */
+    public Tournament(long masterSeed, int seats) {
+        if (seats < 2 || seats > PlayerList.DEFAULT_CAPACITY) {
+            throw new IllegalArgumentException("A table seats 2 to " + PlayerList.DEFAULT_CAPACITY + " players");
+        }
+        this.masterSeed = masterSeed;
+        this.seats = seats;
+        this.names = new ArrayList<>();
+        this.factories = new ArrayList<>();
+        this.sprt = new Sprt(-10, 10, 0.05, 0.05);
+        this.dealsPerBatch = 8;
+        this.maxGames = 1000;
+    }
+
+    /**
+     * Adds an entrant to the tournament.
+     *
+     * @param name
+     *          the name of the entrant
+     * @param factory
+     *          the factory creating the entrant's agent for each game
+     */
+    public void addEntrant(String name, AgentFactory factory) {
+        names.add(name);
+        factories.add(factory);
+    }
+
+    /**
+     * Sets when a table stops.
+     *
+     * @param sprt
+     *          the test run between every pair at a table, null to always play maxGames
+     * @param dealsPerBatch
+     *          the number of deals played between two checks of the test, each dealt once per seat
+     * @param maxGames
+     *          the largest number of games at a table
+     */
+    public void setStopping(Sprt sprt, int dealsPerBatch, int maxGames) {
+        if (dealsPerBatch <= 0 || maxGames <= 0) {
+            throw new IllegalArgumentException("Batch and game limits must be positive");
+        }
+        this.sprt = sprt;
+        this.dealsPerBatch = dealsPerBatch;
+        this.maxGames = maxGames;
+    }
+
+    /**
+     * Reports the result of every table as it is recorded.
+     *
+     * @param log
+     *          the stream to report to, null for none
+     */
+    public void setLog(PrintStream log) {
+        this.log = log;
+    }
+
+    /**
+     * Plays a table of every combination of entrants.
+     *
+     * @param parallelism
+     *          the number of worker threads
+     *
+     * @return the final standings
+     */
+    public Standings roundRobin(int parallelism) {
+        checkEntrants();
+        List<int[]> tables = new ArrayList<>();
+        combinations(new int[seats], 0, 0, tables);
+        Standings standings = new Standings(names.toArray(new String[0]));
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            playTables(pool, tables, standings);
+        } finally {
+            pool.shutdown();
+        }
+        return standings;
+    }
+
+    /**
+     * Plays a Swiss tournament. Each round seats entrants with their neighbours in the standings,
+     * avoiding tables of entrants who have already met where it can. Entrants left over get a bye,
+     * going to the lowest-ranked of those with the fewest byes.
+     *
+     * @param rounds
+     *          the number of rounds
+     * @param parallelism
+     *          the number of worker threads
+     *
+     * @return the final standings
+     */
+    public Standings swiss(int rounds, int parallelism) {
+        checkEntrants();
+        Standings standings = new Standings(names.toArray(new String[0]));
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            for (int round = 0; round < rounds; round++) {
+                if (log != null) {
+                    log.printf("round %d%n", round + 1);
+                }
+                playTables(pool, swissTables(standings), standings);
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return standings;
+    }
+
+    private void checkEntrants() {
+        if (names.size() < seats) {
+            throw new IllegalStateException("At least " + seats + " entrants are needed");
+        }
+    }
+
+    /**
+     * Seats the next Swiss round.
+     *
+     * @param standings
+     *          the standings so far
+     *
+     * @return the tables, each a list of entrants
+     */
+    private List<int[]> swissTables(Standings standings) {
+        int[] ranking = standings.ranking();
+        boolean[] seated = new boolean[ranking.length];
+        int tableCount = ranking.length / seats;
+        int toSeat = tableCount * seats;
+        for (int left = ranking.length - toSeat; left > 0; left--) {
+            int bye = -1;
+            for (int r = ranking.length - 1; r >= 0; r--) {
+                if (!seated[r] && (bye < 0 || standings.getByes(ranking[r]) < standings.getByes(ranking[bye]))) {
+                    bye = r;
+                }
+            }
+            seated[bye] = true;
+            standings.bye(ranking[bye], seats - 1);
+        }
+        List<int[]> tables = new ArrayList<>();
+        for (int t = 0; t < tableCount; t++) {
+            int[] table = new int[seats];
+            int n = 0;
+            for (int pass = 0; pass < 2 && n < seats; pass++) {
+                for (int r = 0; r < ranking.length && n < seats; r++) {
+                    if (!seated[r] && (pass == 1 || !metAny(standings, ranking[r], table, n))) {
+                        seated[r] = true;
+                        table[n++] = ranking[r];
+                    }
+                }
+            }
+            tables.add(table);
+        }
+        return tables;
+    }
+
+    private static boolean metAny(Standings standings, int entrant, int[] table, int n) {
+        for (int i = 0; i < n; i++) {
+            if (standings.haveMet(entrant, table[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Lists every combination of seats entrants, in lexicographic order.
+     */
+    private void combinations(int[] table, int n, int from, List<int[]> tables) {
+        if (n == table.length) {
+            tables.add(table.clone());
+            return;
+        }
+        for (int e = from; e <= names.size() - (table.length - n); e++) {
+            table[n] = e;
+            combinations(table, n + 1, e + 1, tables);
+        }
+    }
+
+    /**
+     * Plays tables in parallel and records them in the order given.
+     */
+    private void playTables(ForkJoinPool pool, List<int[]> tables, Standings standings) {
+        List<Callable<byte[]>> tasks = new ArrayList<>();
+        for (int[] table : tables) {
+            tasks.add(() -> playTable(table));
+        }
+        List<Future<byte[]>> results = pool.invokeAll(tasks);
+        for (int t = 0; t < tables.size(); t++) {
+            int[] table = tables.get(t);
+            byte[] winners;
+            try {
+                winners = results.get(t).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while playing the tournament", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("A table failed", e.getCause());
+            }
+            standings.record(table, winners, winners.length);
+            if (log != null) {
+                report(table, winners);
+            }
+        }
+    }
+
+    /**
+     * Plays the games of a table until the test settles every pair or the game limit is reached.
+     * The entrants are seated, and the table seeded, in ascending order of entrant.
+     *
+     * @param table
+     *          the entrants at the table
+     *
+     * @return the table index of the winner of each game played
+     */
+    private byte[] playTable(int[] table) {
+        int[] seated = table.clone();
+        Arrays.sort(seated);
+        int[] index = new int[seats];
+        for (int i = 0; i < seats; i++) {
+            for (int j = 0; j < seats; j++) {
+                if (table[j] == seated[i]) {
+                    index[i] = j;
+                }
+            }
+        }
+        long seed = tableSeed(seated);
+        byte[] winners = new byte[maxGames];
+        long[] won = new long[seats];
+        int games = 0;
+        while (games < maxGames) {
+            int end = Math.min(maxGames, games + dealsPerBatch * seats);
+            for (; games < end; games++) {
+                int winner = playGame(seed, seated, games);
+                winners[games] = (byte) index[winner];
+                won[winner]++;
+            }
+            if (sprt != null && settled(won, games)) {
+                break;
+            }
+        }
+        return Arrays.copyOf(winners, games);
+    }
+
+    /**
+     * Checks whether the test has settled every pair at a table. Between two entrants, a game is
+     * a win for the one who won it and a draw if someone else did.
+     */
+    private boolean settled(long[] won, int games) {
+        for (int i = 0; i < seats; i++) {
+            for (int j = i + 1; j < seats; j++) {
+                if (sprt.decide(won[i], games - won[i] - won[j], won[j]) == Sprt.Decision.CONTINUE) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Plays one game of a table. Game g is deal g / seats with the entrants rotated g % seats seats.
+     *
+     * @param tableSeed
+     *          the seed of the table
+     * @param table
+     *          the entrants at the table
+     * @param g
+     *          the index of the game at the table
+     *
+     * @return the table index of the winner
+     */
+    private int playGame(long tableSeed, int[] table, int g) {
+        int rotation = g % seats;
+        SplittableRandom random = new SplittableRandom(mix(tableSeed + (g / seats + 1) * 0x9E3779B97F4A7C15L));
+        Deck deck = new Deck(random.split());
+        PlayerList players = new PlayerList();
+        List<GameListener> listeners = new ArrayList<>();
+        for (int seat = 0; seat < seats; seat++) {
+            int entrant = table[(seat + rotation) % seats];
+            Agent agent = factories.get(entrant).create(random.split());
+            if (agent instanceof GameListener) {
+                listeners.add((GameListener) agent);
+            }
+            players.addPlayer(names.get(entrant) + " " + seat, agent);
+        }
+        GameListener all = listeners.isEmpty() ? null : listeners.size() == 1 ? listeners.get(0)
+                : new MulticastListener(listeners.toArray(new GameListener[0]));
+        new Game(players, deck, all).start();
+        return (players.getGameWinner().getSeat() + rotation) % seats;
+    }
+
+    private long tableSeed(int[] table) {
+        long z = masterSeed;
+        for (int entrant : table) {
+            z = mix(z + (entrant + 1) * 0x9E3779B97F4A7C15L);
+        }
+        return z;
+    }
+
+    /**
+     * Mixes the bits of a seed, as in SplitMix64.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private void report(int[] table, byte[] winners) {
+        long[] won = new long[seats];
+        for (byte w : winners) {
+            won[w]++;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < seats; i++) {
+            sb.append(i == 0 ? "" : " vs ").append(names.get(table[i])).append(' ').append(won[i]);
+        }
+        boolean stopped = winners.length < maxGames;
+        log.printf("%s in %d games%s%n", sb, winners.length, stopped ? ", settled early" : "");
+    }
+
+    /**
+     * Plays a tournament between random, heuristic and MCTS agents and prints the standings.
+     *
+     * @param args
+     *          the format, roundrobin or swiss, the number of seats, the number of threads,
+     *          the largest number of games per table, the number of Swiss rounds and the master seed
+     */
+    public static void main(String[] args) {
+        String format = args.length > 0 ? args[0] : "roundrobin";
+        int seats = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int maxGames = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+        int rounds = args.length > 4 ? Integer.parseInt(args[4]) : 3;
+        long seed = args.length > 5 ? Long.parseLong(args[5]) : 1;
+
+        Tournament tournament = new Tournament(seed, seats);
+        tournament.setStopping(new Sprt(-10, 10, 0.05, 0.05), 8, maxGames);
+        tournament.setLog(System.out);
+        tournament.addEntrant("random", RandomAgent::new);
+        tournament.addEntrant("heuristic", HeuristicAgent::new);
+        tournament.addEntrant("mcts-2ms", random -> new MctsAgent(random, 2, 1));
+        tournament.addEntrant("mcts-10ms", random -> new MctsAgent(random, 10, 1));
+        long start = System.nanoTime();
+        Standings standings = format.equals("swiss") ? tournament.swiss(rounds, threads) : tournament.roundRobin(threads);
+        System.out.print(standings);
+        System.out.printf("%.2f s%n", (System.nanoTime() - start) / 1e9);
+    }
+
+}
@@ -0,0 +1,116 @@
+package view;
+
+import controller.Agent;
+import controller.Player;
+import controller.PlayerList;
+import model.Card;
+import model.Deck;
+
+import java.io.PrintWriter;
+import java.util.Scanner;
+import java.util.function.Supplier;
+
+/**
+ * Agent that asks the player at the console for every decision.
+ */
+public class ConsoleAgent implements Agent {
+
+    /**
+     * The source of input lines.
+     */
+    private Supplier<String> in;
+    /**
+     * The renderer of the console, flushed before every read.
+     */
+    private ConsoleRenderer renderer;
+    /**
+     * The page of the renderer.
+     */
+    private PrintWriter out;
+
+    /**
+     * Public constructor for a ConsoleAgent object.
+     * @param in
+     *          the input stream
+     * @param renderer
+     *          the renderer of the console
+     */
+    public ConsoleAgent(Scanner in, ConsoleRenderer renderer) {
+        this(in::nextLine, renderer);
+    }
+
+    /**
+     * Public constructor for a ConsoleAgent object reading from any source of lines.
+     * @param in
+     *          the source of input lines, throwing a NoSuchElementException once it runs out
+     * @param renderer
+     *          the renderer of the console
+     */
+    public ConsoleAgent(Supplier<String> in, ConsoleRenderer renderer) {
+        this.in = in;
+        this.renderer = renderer;
+        this.out = renderer.page();
+    }
+
+    @Override
+    public int chooseCard(Player user, PlayerList players, Deck deck) {
+        user.hand().print(out);
+        out.println();
+        out.print("Which card would you like to play (0 for first, 1 for second): ");
+        String cardPosition = readLine();
+        while (!cardPosition.equals("0") && !cardPosition.equals("1")) {
+            out.println("Please enter a valid card position");
+            out.print("Which card would you like to play (0 for first, 1 for second): ");
+            cardPosition = readLine();
+        }
+
+        return Integer.parseInt(cardPosition);
+    }
+
+    @Override
+    public Player chooseOpponent(Player user, Card card, PlayerList players) {
+        Player opponent = null;
+        boolean validTarget = false;
+        while (!validTarget) {
+            out.print("Who would you like to target: ");
+            String opponentName = readLine();
+            opponent = players.getPlayer(opponentName);
+            if (opponent == null) {
+                out.println("This player is not in the game");
+            } else if (opponent.isProtected()) {
+                out.println("This player is protected by a handmaiden");
+            } else if (opponent.getName().equals(user.getName())) {
+                out.println("You cannot target yourself");
+            } else if (!opponent.hand().hasCards()) {
+                out.println("This player is out of cards");
+            } else {
+                validTarget = true;
+            }
+        }
+        return opponent;
+    }
+
+    @Override
+    public Card chooseGuess(Player user, Player opponent, PlayerList players) {
+        out.print("Which card would you like to guess: ");
+        Card guess = Card.forName(readLine());
+
+        while (guess == null || guess == Card.GUARD) {
+            out.println("Invalid card name");
+            out.print("Which card would you like to guess: ");
+            guess = Card.forName(readLine());
+        }
+        return guess;
+    }
+
+    /**
+     * Shows everything printed so far and reads a line of input.
+     *
+     * @return the line
+     */
+    private String readLine() {
+        renderer.flush();
+        return in.get();
+    }
+
+}
@@ -0,0 +1,93 @@
+package view;
+
+import controller.Agent;
+import controller.Game;
+import controller.PlayerList;
+import model.Deck;
+
+import java.io.PrintWriter;
+import java.util.Scanner;
+import java.util.function.Supplier;
+
+/**
+ * The console front end. Runs a Game where every player is at the console.
+ */
+public class ConsoleGame {
+
+    /**
+     * The list of players in the game.
+     */
+    private PlayerList players;
+    /**
+     * The source of input lines.
+     */
+    private Supplier<String> in;
+    /**
+     * The renderer of the console.
+     */
+    private ConsoleRenderer renderer;
+    /**
+     * The deck of cards.
+     */
+    private Deck deck;
+
+    /**
+     * Public constructor for a ConsoleGame object.
+     * @param in
+     *          the input stream
+     */
+    public ConsoleGame(Scanner in) {
+        this(in::nextLine, new ConsoleRenderer(), new Deck());
+    }
+
+    /**
+     * Public constructor for a ConsoleGame object with its own input, output and deck,
+     * used to replay recorded sessions.
+     * @param in
+     *          the source of input lines, throwing a NoSuchElementException once it runs out
+     * @param renderer
+     *          the renderer of the console, closed when the game is over
+     * @param deck
+     *          the deck of cards
+     */
+    public ConsoleGame(Supplier<String> in, ConsoleRenderer renderer, Deck deck) {
+        this.players = new PlayerList();
+        this.in = in;
+        this.renderer = renderer;
+        this.deck = deck;
+    }
+
+    /**
+     * Sets up the players that make up the player list.
+     */
+    public void setPlayers() {
+        Agent console = new ConsoleAgent(in, renderer);
+        PrintWriter out = renderer.page();
+        out.print("Enter player name (empty when done): ");
+        renderer.flush();
+        String name = in.get();
+
+        while (!name.isEmpty()) {
+            if (this.players.isFull()) {
+                out.println("The table is full");
+            } else if (!this.players.addPlayer(name, console)) {
+                out.println("Player is already in the game");
+            }
+            out.print("Enter player name (empty when done): ");
+            renderer.flush();
+            name = in.get();
+        }
+    }
+
+    /**
+     * Plays the game until a player has won, then writes out the remaining output.
+     */
+    public void start() {
+        try {
+            new Game(players, deck, new ConsoleListener(renderer)).start();
+        } finally {
+            renderer.close();
+        }
+    }
+
+}
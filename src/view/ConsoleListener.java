@@ -0,0 +1,100 @@
+package view;
+
+import controller.GameListener;
+import controller.Player;
+import controller.PlayerList;
+import model.Card;
+
+import java.io.PrintWriter;
+
+/**
+ * Prints the events of a game to the console through a ConsoleRenderer.
+ */
+public class ConsoleListener implements GameListener {
+
+    /**
+     * The renderer of the console.
+     */
+    private final ConsoleRenderer renderer;
+    /**
+     * The page of the renderer.
+     */
+    private final PrintWriter out;
+
+    /**
+     * Public constructor for a ConsoleListener object.
+     *
+     * @param renderer
+     *          the renderer of the console
+     */
+    public ConsoleListener(ConsoleRenderer renderer) {
+        this.renderer = renderer;
+        this.out = renderer.page();
+    }
+
+    @Override
+    public void turnStarted(Player player, PlayerList players) {
+        players.printUsedPiles(out);
+        out.println("\n" + player.getName() + "'s turn:");
+        renderer.publish();
+    }
+
+    @Override
+    public void cardPlayed(Player user, Card card, Player target, Card guess) {
+        if (card.isTargeted() && target == null) {
+            out.println("There is no one to target");
+        } else if (card == Card.HANDMAIDEN) {
+            out.println("You are now protected until your next turn");
+        }
+        renderer.publish();
+    }
+
+    @Override
+    public void guardGuessed(Player user, Player opponent, Card guess, boolean correct) {
+        if (correct) {
+            out.println("You have guessed correctly!");
+        } else {
+            out.println("You have guessed incorrectly");
+        }
+        renderer.publish();
+    }
+
+    @Override
+    public void priestRevealed(Player user, Player opponent, Card card) {
+        out.println(opponent.getName() + " shows you a " + card);
+        renderer.publish();
+    }
+
+    @Override
+    public void baronCompared(Player user, Player opponent, Player loser, boolean tied) {
+        if (!tied) {
+            if (loser == opponent) {
+                out.println("You have won the comparison!");
+            } else {
+                out.println("You have lost the comparison");
+            }
+        } else {
+            out.println("You have the same card!");
+            if (loser == user) {
+                out.println("You have lost the used pile comparison");
+            } else {
+                out.println("You have won the used pile comparison");
+            }
+        }
+        renderer.publish();
+    }
+
+    @Override
+    public void roundWon(Player winner, PlayerList players) {
+        out.println(winner.getName() + " has won this round!");
+        players.print(out);
+        renderer.publish();
+    }
+
+    @Override
+    public void gameWon(Player winner) {
+        out.println(winner + " has won the game and the heart of the princess!");
+        renderer.publish();
+    }
+
+}
@@ -0,0 +1,193 @@
+package view;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Writes console output on its own thread, so the game never waits on the console.
+ * Text is formatted by the game thread into a page, queued in order, and written by the
+ * renderer thread in batches through a buffered writer, which is flushed whenever the queue runs dry.
+ * Before reading input, callers flush the renderer so every prompt is on screen.
+ * An inline renderer has no thread and writes each page as it is published, for output that is
+ * captured rather than shown.
+ */
+public class ConsoleRenderer implements Closeable {
+
+    /**
+     * Queued to stop the renderer thread.
+     */
+    private static final Object STOP = new Object();
+
+    /**
+     * Text, flush requests and the stop marker, in order.
+     */
+    private final BlockingQueue<Object> queue;
+    /**
+     * The buffered console.
+     */
+    private final PrintWriter out;
+    /**
+     * The renderer thread, null for an inline renderer.
+     */
+    private final Thread thread;
+    /**
+     * The text being formatted by the calling thread.
+     */
+    private final StringWriter text;
+    /**
+     * Formats into text.
+     */
+    private final PrintWriter page;
+
+    /**
+     * Public constructor for a ConsoleRenderer object writing to System.out.
+     */
+    public ConsoleRenderer() {
+        this(new OutputStreamWriter(System.out));
+    }
+
+    /**
+     * Public constructor for a ConsoleRenderer object.
+     *
+     * @param console
+     *          the writer the output goes to
+     */
+    public ConsoleRenderer(Writer console) {
+        this(console, true);
+    }
+
+    /**
+     * Constructor for a ConsoleRenderer object.
+     *
+     * @param console
+     *          the writer the output goes to
+     * @param threaded
+     *          true to write from a renderer thread, false to write inline
+     */
+    private ConsoleRenderer(Writer console, boolean threaded) {
+        this.queue = new LinkedBlockingQueue<>();
+        this.out = new PrintWriter(threaded ? new BufferedWriter(console, 1 << 16) : console);
+        this.text = new StringWriter();
+        this.page = new PrintWriter(text);
+        if (threaded) {
+            this.thread = new Thread(this::run, "console-renderer");
+            this.thread.setDaemon(true);
+            this.thread.start();
+        } else {
+            this.thread = null;
+        }
+    }
+
+    /**
+     * Creates a renderer without a thread, which writes every page to the console as it is published.
+     *
+     * @param console
+     *          the writer the output goes to
+     *
+     * @return the renderer
+     */
+    public static ConsoleRenderer inline(Writer console) {
+        return new ConsoleRenderer(console, false);
+    }
+
+    /**
+     * Gets the page the calling thread formats its output into. Only one thread may use the page,
+     * and what it holds reaches the console once it is published.
+     *
+     * @return the page
+     */
+    public PrintWriter page() {
+        return this.page;
+    }
+
+    /**
+     * Queues the page for the console and starts a new one.
+     */
+    public void publish() {
+        page.flush();
+        if (text.getBuffer().length() > 0) {
+            if (thread == null) {
+                out.append(text.getBuffer());
+            } else {
+                queue.add(text.toString());
+            }
+            text.getBuffer().setLength(0);
+        }
+    }
+
+    /**
+     * Publishes the page and waits until everything queued is on the console.
+     */
+    public void flush() {
+        publish();
+        if (thread == null) {
+            out.flush();
+            return;
+        }
+        CountDownLatch done = new CountDownLatch(1);
+        queue.add(done);
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes out everything queued and stops the renderer thread.
+     */
+    @Override
+    public void close() {
+        publish();
+        if (thread == null) {
+            out.flush();
+            return;
+        }
+        queue.add(STOP);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes queued text in batches until stopped.
+     */
+    private void run() {
+        List<Object> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch);
+            for (Object item : batch) {
+                if (item instanceof String) {
+                    out.write((String) item);
+                } else if (item instanceof CountDownLatch) {
+                    out.flush();
+                    ((CountDownLatch) item).countDown();
+                } else {
+                    out.flush();
+                    return;
+                }
+            }
+            batch.clear();
+            if (queue.isEmpty()) {
+                out.flush();
+            }
+        }
+    }
+
+}
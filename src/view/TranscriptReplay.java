@@ -0,0 +1,360 @@
+package view;
+
+import model.Card;
+import model.StackedDeck;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Replays a directory of recorded console sessions through the console front end in one JVM,
+ * in parallel, and compares each session's output with the output recorded for it.
+ *
+ * A transcript (name.txt) starts with one line per round giving the deck order, the first card
+ * being dealt first, followed by the lines typed at the console:
+ *  deck Guard Priest Guard ...
+ *  deck ...
+ *  Alice
+ *  Bob
+ *
+ *  0
+ *  Bob
+ *  ...
+ * The recorded output sits next to it as name.out. Transcripts are read through memory maps and
+ * split into lines without a Scanner, and the console output is captured by an inline renderer,
+ * so a replay costs little more than the game itself.
+ */
+public class TranscriptReplay {
+
+    /**
+     * The extension of transcripts.
+     */
+    public static final String TRANSCRIPT = ".txt";
+    /**
+     * The extension of recorded outputs.
+     */
+    public static final String EXPECTED = ".out";
+    /**
+     * The prefix of a deck order line.
+     */
+    private static final String DECK = "deck ";
+
+    /**
+     * How a replay turned out.
+     */
+    public enum Outcome {
+        /**
+         * The output matched the recorded output.
+         */
+        PASSED,
+        /**
+         * The output differed from the recorded output.
+         */
+        FAILED,
+        /**
+         * The output was recorded.
+         */
+        RECORDED,
+        /**
+         * The transcript could not be replayed.
+         */
+        ERROR
+    }
+
+    /**
+     * The result of replaying one transcript.
+     */
+    public static class Result {
+
+        private final Path transcript;
+        private final Outcome outcome;
+        private final String message;
+
+        Result(Path transcript, Outcome outcome, String message) {
+            this.transcript = transcript;
+            this.outcome = outcome;
+            this.message = message;
+        }
+
+        /**
+         * Gets the transcript replayed.
+         *
+         * @return the transcript path
+         */
+        public Path getTranscript() {
+            return this.transcript;
+        }
+
+        /**
+         * Gets how the replay turned out.
+         *
+         * @return the outcome
+         */
+        public Outcome getOutcome() {
+            return this.outcome;
+        }
+
+        @Override
+        public String toString() {
+            return outcome + " " + transcript.getFileName() + (message == null ? "" : ": " + message);
+        }
+    }
+
+    private TranscriptReplay() {
+    }
+
+    /**
+     * Replays one transcript and compares its output with the recorded output.
+     *
+     * @param transcript
+     *          the transcript file
+     * @param record
+     *          true to write the output as the recorded output instead of comparing it
+     *
+     * @return the result
+     */
+    public static Result replay(Path transcript, boolean record) {
+        Path expected = expectedFor(transcript);
+        try {
+            String output = play(transcript);
+            if (record) {
+                Files.writeString(expected, output, StandardCharsets.UTF_8);
+                return new Result(transcript, Outcome.RECORDED, null);
+            }
+            if (!Files.exists(expected)) {
+                return new Result(transcript, Outcome.ERROR, "no recorded output " + expected.getFileName());
+            }
+            String difference = diff(read(expected), CharBuffer.wrap(output));
+            return new Result(transcript, difference == null ? Outcome.PASSED : Outcome.FAILED, difference);
+        } catch (IOException | RuntimeException e) {
+            return new Result(transcript, Outcome.ERROR, e.toString());
+        }
+    }
+
+    /**
+     * Replays every transcript of a directory on a fork/join pool.
+     *
+     * @param dir
+     *          the directory of transcripts
+     * @param record
+     *          true to write the outputs as the recorded outputs instead of comparing them
+     * @param parallelism
+     *          the number of worker threads
+     *
+     * @return the results, in file name order
+     *
+     * @throws IOException
+     *          if the directory cannot be listed
+     */
+    public static List<Result> replayAll(Path dir, boolean record, int parallelism) throws IOException {
+        List<Path> transcripts;
+        try (Stream<Path> files = Files.list(dir)) {
+            transcripts = files.filter(p -> p.getFileName().toString().endsWith(TRANSCRIPT)).sorted()
+                    .collect(Collectors.toList());
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.submit(() -> transcripts.parallelStream().map(t -> replay(t, record))
+                    .collect(Collectors.toList())).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while replaying", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Plays the session of a transcript.
+     *
+     * @param transcript
+     *          the transcript file
+     *
+     * @return everything the session printed
+     *
+     * @throws IOException
+     *          if the transcript cannot be read
+     */
+    private static String play(Path transcript) throws IOException {
+        Lines lines = new Lines(read(transcript));
+        StackedDeck deck = new StackedDeck();
+        while (lines.peekDeck()) {
+            deck.addOrder(parseOrder(lines.get()));
+        }
+        StringWriter output = new StringWriter();
+        ConsoleGame game = new ConsoleGame(lines, ConsoleRenderer.inline(output), deck);
+        game.setPlayers();
+        game.start();
+        return output.toString();
+    }
+
+    /**
+     * Parses a deck order line.
+     *
+     * @param line
+     *          the line, starting with "deck "
+     *
+     * @return the cards, the first being dealt first
+     */
+    private static Card[] parseOrder(String line) {
+        String[] names = line.substring(DECK.length()).trim().split("\\s+");
+        Card[] order = new Card[names.length];
+        for (int i = 0; i < names.length; i++) {
+            order[i] = Card.forName(names[i]);
+            if (order[i] == null) {
+                throw new IllegalArgumentException("Unknown card in deck order: " + names[i]);
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Maps a file and decodes it.
+     *
+     * @param file
+     *          the file
+     *
+     * @return the text of the file
+     *
+     * @throws IOException
+     *          if the file cannot be read
+     */
+    private static CharBuffer read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return StandardCharsets.UTF_8.decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    private static Path expectedFor(Path transcript) {
+        String name = transcript.getFileName().toString();
+        return transcript.resolveSibling(name.substring(0, name.length() - TRANSCRIPT.length()) + EXPECTED);
+    }
+
+    /**
+     * Finds the first line where two outputs differ, whatever their line separators.
+     *
+     * @param expected
+     *          the recorded output
+     * @param actual
+     *          the output of the replay
+     *
+     * @return a description of the first difference, null if there is none
+     */
+    private static String diff(CharBuffer expected, CharBuffer actual) {
+        Lines e = new Lines(expected);
+        Lines a = new Lines(actual);
+        for (int line = 1; ; line++) {
+            boolean more = e.hasNext();
+            if (more != a.hasNext()) {
+                return "line " + line + ": " + (more ? "output ends early" : "output goes on");
+            }
+            if (!more) {
+                return null;
+            }
+            String want = e.get();
+            String got = a.get();
+            if (!want.equals(got)) {
+                return "line " + line + ": expected \"" + want + "\" but was \"" + got + "\"";
+            }
+        }
+    }
+
+    /**
+     * Splits text into lines, dropping \n and \r\n separators.
+     */
+    private static final class Lines implements Supplier<String> {
+
+        private final CharBuffer text;
+        private int pos;
+
+        Lines(CharBuffer text) {
+            this.text = text;
+        }
+
+        boolean hasNext() {
+            return pos < text.length();
+        }
+
+        /**
+         * Checks whether the next line is a deck order.
+         */
+        boolean peekDeck() {
+            if (text.length() - pos < DECK.length()) {
+                return false;
+            }
+            for (int i = 0; i < DECK.length(); i++) {
+                if (text.charAt(pos + i) != DECK.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String get() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("The transcript ends before the game does");
+            }
+            int start = pos;
+            while (pos < text.length() && text.charAt(pos) != '\n') {
+                pos++;
+            }
+            int end = pos > start && text.charAt(pos - 1) == '\r' ? pos - 1 : pos;
+            if (pos < text.length()) {
+                pos++;
+            }
+            return text.subSequence(start, end).toString();
+        }
+    }
+
+    /**
+     * Replays a directory of transcripts and prints every failure and a summary.
+     *
+     * @param args
+     *          the directory, optionally followed by --record to record the outputs
+     *          and by the number of threads
+     *
+     * @throws IOException
+     *          if the directory cannot be listed
+     */
+    public static void main(String[] args) throws IOException {
+        Path dir = Paths.get(args.length > 0 ? args[0] : ".");
+        boolean record = args.length > 1 && args[1].equals("--record");
+        int next = record ? 2 : 1;
+        int threads = args.length > next ? Integer.parseInt(args[next]) : Runtime.getRuntime().availableProcessors();
+
+        long start = System.nanoTime();
+        List<Result> results = replayAll(dir, record, threads);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        int[] counts = new int[Outcome.values().length];
+        for (Result r : results) {
+            counts[r.getOutcome().ordinal()]++;
+            if (r.getOutcome() == Outcome.FAILED || r.getOutcome() == Outcome.ERROR) {
+                System.out.println(r);
+            }
+        }
+        System.out.printf("%d transcripts: %d passed, %d failed, %d errors, %d recorded in %.2f s%n", results.size(),
+                counts[Outcome.PASSED.ordinal()], counts[Outcome.FAILED.ordinal()], counts[Outcome.ERROR.ordinal()],
+                counts[Outcome.RECORDED.ordinal()], seconds);
+        if (counts[Outcome.FAILED.ordinal()] + counts[Outcome.ERROR.ordinal()] > 0) {
+            System.exit(1);
+        }
+    }
+
+}